@@ -0,0 +1,41 @@
+package com.jhipster.demo.blog.aop.cache;
+
+import com.jhipster.demo.blog.service.CachedQuery;
+import com.jhipster.demo.blog.service.QueryResultCache;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Aspect enabling the {@link QueryResultCache} for the methods annotated with {@link CachedQuery}.
+ * <p>
+ * The returned publisher carries the flag in its subscriber context, so it covers every query of the method, including
+ * the ones run by the repository methods it calls.
+ */
+@Aspect
+public class CachedQueryAspect {
+
+    private static final Context ENABLED = Context.of(QueryResultCache.ENABLED, true);
+
+    /**
+     * Advice that enables the query cache for the returned publisher.
+     *
+     * @param joinPoint join point for advice.
+     * @return result.
+     * @throws Throwable throws {@link IllegalArgumentException}.
+     */
+    @Around("@annotation(com.jhipster.demo.blog.service.CachedQuery)")
+    public Object enableQueryCache(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object result = joinPoint.proceed();
+        if (result instanceof Mono) {
+            return ((Mono<?>) result).subscriberContext(ENABLED);
+        }
+        if (result instanceof Flux) {
+            return ((Flux<?>) result).subscriberContext(ENABLED);
+        }
+        throw new IllegalArgumentException("@CachedQuery method " + joinPoint.getSignature() + " must return a Mono or a Flux");
+    }
+}
@@ -1,6 +1,11 @@
 package com.jhipster.demo.blog.config;
 
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 /**
  * Properties specific to Blog.
@@ -9,4 +14,577 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final Database database = new Database();
+
+    private final CountCache countCache = new CountCache();
+
+    private final EntityCache entityCache = new EntityCache();
+
+    private final QueryCache queryCache = new QueryCache();
+
+    private final UserSync userSync = new UserSync();
+
+    private final JwtCache jwtCache = new JwtCache();
+
+    private final OidcCache oidcCache = new OidcCache();
+
+    private final CacheInvalidation cacheInvalidation = new CacheInvalidation();
+
+    private final PostContentMigration postContentMigration = new PostContentMigration();
+
+    private final PostContentCompression postContentCompression = new PostContentCompression();
+
+    public Database getDatabase() {
+        return database;
+    }
+
+    public CountCache getCountCache() {
+        return countCache;
+    }
+
+    public EntityCache getEntityCache() {
+        return entityCache;
+    }
+
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    public UserSync getUserSync() {
+        return userSync;
+    }
+
+    public JwtCache getJwtCache() {
+        return jwtCache;
+    }
+
+    public OidcCache getOidcCache() {
+        return oidcCache;
+    }
+
+    public CacheInvalidation getCacheInvalidation() {
+        return cacheInvalidation;
+    }
+
+    public PostContentMigration getPostContentMigration() {
+        return postContentMigration;
+    }
+
+    public PostContentCompression getPostContentCompression() {
+        return postContentCompression;
+    }
+
+    public static class Database {
+
+        private final Pool pool = new Pool();
+
+        private final Replicas replicas = new Replicas();
+
+        public Pool getPool() {
+            return pool;
+        }
+
+        public Replicas getReplicas() {
+            return replicas;
+        }
+
+        /**
+         * Connection pool settings which are not covered by {@code spring.r2dbc.pool}.
+         */
+        public static class Pool {
+
+            private Duration maxAcquireTime = Duration.ofSeconds(5);
+
+            private Duration maxCreateConnectionTime = Duration.ofSeconds(5);
+
+            private Duration warmupTimeout = Duration.ofSeconds(30);
+
+            public Duration getMaxAcquireTime() {
+                return maxAcquireTime;
+            }
+
+            public void setMaxAcquireTime(Duration maxAcquireTime) {
+                this.maxAcquireTime = maxAcquireTime;
+            }
+
+            public Duration getMaxCreateConnectionTime() {
+                return maxCreateConnectionTime;
+            }
+
+            public void setMaxCreateConnectionTime(Duration maxCreateConnectionTime) {
+                this.maxCreateConnectionTime = maxCreateConnectionTime;
+            }
+
+            public Duration getWarmupTimeout() {
+                return warmupTimeout;
+            }
+
+            public void setWarmupTimeout(Duration warmupTimeout) {
+                this.warmupTimeout = warmupTimeout;
+            }
+        }
+
+        /**
+         * Read replicas, which serve the read-only work when configured, see {@link RoutingConnectionFactory}.
+         */
+        public static class Replicas {
+
+            /**
+             * R2DBC URLs of the replicas, using the credentials and pool settings of the primary database.
+             */
+            private List<String> urls = new ArrayList<>();
+
+            /**
+             * How long the reads of a user go to the primary database after they wrote to it.
+             */
+            private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+            /**
+             * How often the replicas are checked.
+             */
+            private Duration healthCheckInterval = Duration.ofSeconds(10);
+
+            public List<String> getUrls() {
+                return urls;
+            }
+
+            public void setUrls(List<String> urls) {
+                this.urls = urls;
+            }
+
+            public Duration getReadYourWritesWindow() {
+                return readYourWritesWindow;
+            }
+
+            public void setReadYourWritesWindow(Duration readYourWritesWindow) {
+                this.readYourWritesWindow = readYourWritesWindow;
+            }
+
+            public Duration getHealthCheckInterval() {
+                return healthCheckInterval;
+            }
+
+            public void setHealthCheckInterval(Duration healthCheckInterval) {
+                this.healthCheckInterval = healthCheckInterval;
+            }
+        }
+    }
+
+    public static class CountCache {
+
+        /**
+         * How often the cached entity counts are reloaded from the database.
+         */
+        private Duration refreshInterval = Duration.ofMinutes(1);
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+    }
+
+    public static class EntityCache {
+
+        /**
+         * Maximum number of cached entities, per entity type.
+         */
+        private long maximumSize = 1000;
+
+        /**
+         * How long an entity stays cached after it was loaded, which bounds the staleness after a change made outside of
+         * the application.
+         */
+        private Duration timeToLive = Duration.ofMinutes(10);
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+    }
+
+    public static class QueryCache {
+
+        /**
+         * Memory budget of the cached query results, estimated from the size of the cached column values.
+         */
+        private DataSize maximumSize = DataSize.ofMegabytes(16);
+
+        /**
+         * How long a query result stays cached after it was loaded, which bounds the staleness after a change made outside
+         * of the application.
+         */
+        private Duration timeToLive = Duration.ofMinutes(5);
+
+        public DataSize getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(DataSize maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+    }
+
+    /**
+     * The memory of the users synchronized with the identity provider, which skips the synchronization while their claims
+     * don't change.
+     */
+    public static class UserSync {
+
+        /**
+         * Maximum number of remembered users.
+         */
+        private long maximumSize = 10000;
+
+        /**
+         * How long a synchronization is remembered, which bounds the staleness after a change of the user made outside of
+         * the application.
+         */
+        private Duration timeToLive = Duration.ofHours(1);
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+    }
+
+    /**
+     * The verified JWTs of the API clients, kept until they expire.
+     */
+    public static class JwtCache {
+
+        /**
+         * Maximum number of cached tokens.
+         */
+        private long maximumSize = 10000;
+
+        /**
+         * How long a token stays cached at most, even if it expires later, which bounds the time a token is accepted after the
+         * keys of the identity provider are rotated.
+         */
+        private Duration timeToLive = Duration.ofMinutes(30);
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+    }
+
+    /**
+     * The metadata and the userinfo responses of the OpenID Connect provider, kept locally.
+     */
+    public static class OidcCache {
+
+        /**
+         * File keeping the discovery document and the JWK set across restarts.
+         */
+        private String file = Paths.get(System.getProperty("java.io.tmpdir"), "blog-oidc-metadata.json").toString();
+
+        /**
+         * Whether the metadata is refreshed in the background, it's otherwise only fetched when it's missing or a token is
+         * signed with an unknown key.
+         */
+        private boolean refreshInBackground = true;
+
+        /**
+         * How often the metadata is refreshed in the background.
+         */
+        private Duration refreshInterval = Duration.ofMinutes(15);
+
+        /**
+         * Minimum time between two refreshes of the metadata for tokens signed with an unknown key.
+         */
+        private Duration minimumRefreshInterval = Duration.ofSeconds(30);
+
+        /**
+         * How long a refresh of the metadata waits for the provider.
+         */
+        private Duration timeout = Duration.ofSeconds(10);
+
+        /**
+         * Maximum number of cached userinfo responses.
+         */
+        private long userInfoMaximumSize = 10000;
+
+        /**
+         * How long a userinfo response stays cached at most, even if its access token expires later.
+         */
+        private Duration userInfoTimeToLive = Duration.ofMinutes(5);
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public boolean isRefreshInBackground() {
+            return refreshInBackground;
+        }
+
+        public void setRefreshInBackground(boolean refreshInBackground) {
+            this.refreshInBackground = refreshInBackground;
+        }
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+
+        public Duration getMinimumRefreshInterval() {
+            return minimumRefreshInterval;
+        }
+
+        public void setMinimumRefreshInterval(Duration minimumRefreshInterval) {
+            this.minimumRefreshInterval = minimumRefreshInterval;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public long getUserInfoMaximumSize() {
+            return userInfoMaximumSize;
+        }
+
+        public void setUserInfoMaximumSize(long userInfoMaximumSize) {
+            this.userInfoMaximumSize = userInfoMaximumSize;
+        }
+
+        public Duration getUserInfoTimeToLive() {
+            return userInfoTimeToLive;
+        }
+
+        public void setUserInfoTimeToLive(Duration userInfoTimeToLive) {
+            this.userInfoTimeToLive = userInfoTimeToLive;
+        }
+    }
+
+    /**
+     * The channel telling the other instances of the application which cached entries to drop.
+     */
+    public static class CacheInvalidation {
+
+        private boolean enabled = false;
+
+        /**
+         * Multicast group the instances join, unless peers are given.
+         */
+        private String group = "239.255.27.1";
+
+        /**
+         * UDP port the instances listen to.
+         */
+        private int port = 45588;
+
+        /**
+         * Name of the network interface used for multicast, the system default if empty.
+         */
+        private String networkInterface;
+
+        /**
+         * Time to live of the multicast datagrams, 1 keeps them in the local network.
+         */
+        private int timeToLive = 1;
+
+        /**
+         * {@code host:port} addresses of the other instances, to send unicast datagrams instead of joining the multicast group.
+         */
+        private List<String> peers = new ArrayList<>();
+
+        /**
+         * How long the invalidations are collected before they are sent together.
+         */
+        private Duration batchWindow = Duration.ofMillis(50);
+
+        /**
+         * Secret shared by the instances, which sign their invalidations with it; required when enabled.
+         */
+        private String key;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getGroup() {
+            return group;
+        }
+
+        public void setGroup(String group) {
+            this.group = group;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+
+        public String getNetworkInterface() {
+            return networkInterface;
+        }
+
+        public void setNetworkInterface(String networkInterface) {
+            this.networkInterface = networkInterface;
+        }
+
+        public int getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(int timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        public List<String> getPeers() {
+            return peers;
+        }
+
+        public void setPeers(List<String> peers) {
+            this.peers = peers;
+        }
+
+        public Duration getBatchWindow() {
+            return batchWindow;
+        }
+
+        public void setBatchWindow(Duration batchWindow) {
+            this.batchWindow = batchWindow;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+    }
+
+    public static class PostContentMigration {
+
+        private boolean enabled = true;
+
+        /**
+         * Number of posts moved to {@code post_content} per statement.
+         */
+        private int chunkSize = 500;
+
+        /**
+         * Pause between two chunks, to leave room for the regular traffic.
+         */
+        private Duration pause = Duration.ofMillis(100);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public Duration getPause() {
+            return pause;
+        }
+
+        public void setPause(Duration pause) {
+            this.pause = pause;
+        }
+    }
+
+    public static class PostContentCompression {
+
+        /**
+         * Whether the content of the posts is stored Deflate compressed. Both forms are read, whatever this setting.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Deflate compression level, from 1 (fastest) to 9 (smallest).
+         */
+        private int level = 6;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public void setLevel(int level) {
+            this.level = level;
+        }
+    }
+}
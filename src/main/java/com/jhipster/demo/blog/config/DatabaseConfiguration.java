@@ -1,6 +1,12 @@
 package com.jhipster.demo.blog.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
 import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Option;
 import java.sql.SQLException;
 import java.time.Duration;
 import java.time.Instant;
@@ -15,6 +21,7 @@ import java.util.List;
 import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -31,7 +38,9 @@ import org.springframework.data.r2dbc.query.UpdateMapper;
 import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
 import org.springframework.data.relational.core.dialect.RenderContextFactory;
 import org.springframework.data.relational.core.sql.render.SqlRenderer;
+import org.springframework.transaction.ReactiveTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.util.StringUtils;
 import tech.jhipster.config.JHipsterConstants;
 import tech.jhipster.config.h2.H2ConfigurationHelper;
 
@@ -123,6 +132,97 @@ public class DatabaseConfiguration {
         );
     }
 
+    /**
+     * Create the pooled {@link ConnectionFactory}, and open its initial connections before the application reports to be ready.
+     * <p>
+     * When read replicas are configured, they get a pool each and the returned factory routes the connections between the
+     * primary database and the replicas.
+     *
+     * @param properties the R2DBC connection and pool settings.
+     * @param applicationProperties the additional pool settings, and the replicas.
+     * @param meterRegistry the registry for the connection acquisition metrics.
+     * @return the pooled connection factory.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionFactory connectionFactory(
+        R2dbcProperties properties,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        ApplicationProperties.Database database = applicationProperties.getDatabase();
+        MeteredConnectionFactory primary = createPool("connectionFactory", properties.getUrl(), properties, database, meterRegistry);
+        ApplicationProperties.Database.Replicas replicas = database.getReplicas();
+        if (replicas.getUrls().isEmpty()) {
+            return primary;
+        }
+
+        List<ConnectionFactory> replicaPools = new ArrayList<>();
+        for (int i = 0; i < replicas.getUrls().size(); i++) {
+            replicaPools.add(createPool("replica" + i, replicas.getUrls().get(i), properties, database, meterRegistry));
+        }
+        log.info("Routing the read-only work to {} replica(s)", replicaPools.size());
+        return new RoutingConnectionFactory(
+            primary,
+            replicaPools,
+            replicas.getReadYourWritesWindow(),
+            replicas.getHealthCheckInterval(),
+            meterRegistry
+        );
+    }
+
+    private MeteredConnectionFactory createPool(
+        String name,
+        String url,
+        R2dbcProperties properties,
+        ApplicationProperties.Database database,
+        MeterRegistry meterRegistry
+    ) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        if (StringUtils.hasText(properties.getUsername())) {
+            options.option(ConnectionFactoryOptions.USER, properties.getUsername());
+        }
+        if (StringUtils.hasText(properties.getPassword())) {
+            options.option(ConnectionFactoryOptions.PASSWORD, properties.getPassword());
+        }
+        // the driver specific options, as the auto-configured connection factory takes them
+        properties.getProperties().forEach((key, value) -> options.option(Option.valueOf(key), value));
+
+        R2dbcProperties.Pool pool = properties.getPool();
+        ApplicationProperties.Database.Pool timeouts = database.getPool();
+        ConnectionPoolConfiguration.Builder configuration = ConnectionPoolConfiguration
+            .builder(ConnectionFactories.get(options.build()))
+            .name(name)
+            .initialSize(pool.getInitialSize())
+            .maxSize(pool.getMaxSize())
+            .maxIdleTime(pool.getMaxIdleTime())
+            .maxAcquireTime(timeouts.getMaxAcquireTime())
+            .maxCreateConnectionTime(timeouts.getMaxCreateConnectionTime());
+        if (StringUtils.hasText(pool.getValidationQuery())) {
+            configuration.validationQuery(pool.getValidationQuery());
+        }
+        ConnectionPool connectionPool = new ConnectionPool(configuration.build());
+
+        try {
+            Integer warmedUp = connectionPool.warmup().block(timeouts.getWarmupTimeout());
+            log.debug("Connection pool {} warmed up with {} connections", name, warmedUp);
+        } catch (RuntimeException e) {
+            log.warn("Could not warm up the connection pool {}, connections will be opened on demand: {}", name, e.getMessage());
+        }
+        return new MeteredConnectionFactory(connectionPool, name, meterRegistry);
+    }
+
+    /**
+     * Replaces the auto-configured transaction manager, to count the transactions.
+     *
+     * @param connectionFactory the pooled connection factory.
+     * @param meterRegistry the registry for the transaction metrics.
+     * @return the transaction manager.
+     */
+    @Bean
+    public ReactiveTransactionManager transactionManager(ConnectionFactory connectionFactory, MeterRegistry meterRegistry) {
+        return new MeteredTransactionManager(connectionFactory, meterRegistry);
+    }
+
     @Bean
     public R2dbcDialect dialect(ConnectionFactory connectionFactory) {
         return DialectResolver.getDialect(connectionFactory);
@@ -0,0 +1,76 @@
+package com.jhipster.demo.blog.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import java.util.concurrent.TimeUnit;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link ConnectionFactory} which records how long it takes to acquire a connection from the pool.
+ * <p>
+ * The pool's gauges (the acquired, allocated, idle and pending connections) are bound here too, as Spring Boot only binds
+ * them for the connection factory beans which are pools themselves. The pool is available through {@link Wrapped#unwrap()}.
+ */
+public class MeteredConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory>, Disposable {
+
+    private final ConnectionPool pool;
+    private final Timer acquired;
+    private final Timer failed;
+
+    public MeteredConnectionFactory(ConnectionPool pool, String name, MeterRegistry meterRegistry) {
+        this.pool = pool;
+        this.acquired = acquireTimer(name, "success", meterRegistry);
+        this.failed = acquireTimer(name, "failure", meterRegistry);
+        new ConnectionPoolMetrics(pool, name, Tags.empty()).bindTo(meterRegistry);
+    }
+
+    private static Timer acquireTimer(String name, String result, MeterRegistry meterRegistry) {
+        return Timer
+            .builder("r2dbc.pool.acquire")
+            .description("Time spent waiting for a connection from the pool")
+            .tag("name", name)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.defer(
+            () -> {
+                long start = System.nanoTime();
+                return pool
+                    .create()
+                    .doOnSuccess(connection -> acquired.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                    .doOnError(e -> failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+            }
+        );
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return pool.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return pool;
+    }
+
+    @Override
+    public void dispose() {
+        pool.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return pool.isDisposed();
+    }
+}
@@ -0,0 +1,61 @@
+package com.jhipster.demo.blog.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.data.r2dbc.connectionfactory.R2dbcTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link R2dbcTransactionManager} which counts the transactions it begins.
+ * <p>
+ * Besides the {@code r2dbc.transactions} counter, the transaction is added to the {@link AtomicInteger} found under
+ * {@link #REQUEST_TRANSACTIONS} in the subscriber context, so that the transactions can be counted per request.
+ */
+public class MeteredTransactionManager extends R2dbcTransactionManager {
+
+    /**
+     * Subscriber context key of the {@link AtomicInteger} counting the transactions of the current request.
+     */
+    public static final String REQUEST_TRANSACTIONS = MeteredTransactionManager.class.getName() + ".requestTransactions";
+
+    private final Counter readOnlyTransactions;
+    private final Counter readWriteTransactions;
+
+    public MeteredTransactionManager(ConnectionFactory connectionFactory, MeterRegistry meterRegistry) {
+        super(connectionFactory);
+        this.readOnlyTransactions = transactionCounter("true", meterRegistry);
+        this.readWriteTransactions = transactionCounter("false", meterRegistry);
+    }
+
+    private static Counter transactionCounter(String readOnly, MeterRegistry meterRegistry) {
+        return Counter
+            .builder("r2dbc.transactions")
+            .description("Database transactions begun")
+            .tag("read-only", readOnly)
+            .register(meterRegistry);
+    }
+
+    @Override
+    protected Mono<Void> doBegin(
+        TransactionSynchronizationManager synchronizationManager,
+        Object transaction,
+        TransactionDefinition definition
+    ) {
+        return super
+            .doBegin(synchronizationManager, transaction, definition)
+            // lets a RoutingConnectionFactory pick the database of the new transaction
+            .subscriberContext(context -> context.put(RoutingConnectionFactory.READ_ONLY, definition.isReadOnly()))
+            .then(Mono.subscriberContext())
+            .doOnNext(
+                context -> {
+                    (definition.isReadOnly() ? readOnlyTransactions : readWriteTransactions).increment();
+                    context.<AtomicInteger>getOrEmpty(REQUEST_TRANSACTIONS).ifPresent(AtomicInteger::incrementAndGet);
+                }
+            )
+            .then();
+    }
+}
@@ -0,0 +1,16 @@
+package com.jhipster.demo.blog.config;
+
+import com.jhipster.demo.blog.aop.cache.CachedQueryAspect;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+
+@Configuration
+@EnableAspectJAutoProxy
+public class QueryCacheConfiguration {
+
+    @Bean
+    public CachedQueryAspect cachedQueryAspect() {
+        return new CachedQueryAspect();
+    }
+}
@@ -0,0 +1,240 @@
+package com.jhipster.demo.blog.config;
+
+import com.jhipster.demo.blog.security.SecurityUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * {@link ConnectionFactory} which sends the reads to the replicas, and everything else to the primary database.
+ * <p>
+ * A connection is taken from a replica for a read-only transaction, and for the statements run without a transaction
+ * in a read-only transactional method ({@code @Transactional(propagation = SUPPORTS, readOnly = true)}). The work without
+ * any transactional context, and a read-only transaction joining a read-write one, stay on the primary. Each user's reads go
+ * to the primary during the read-your-writes window after they began a read-write transaction, so they see their own
+ * changes despite the replication lag.
+ * <p>
+ * The replicas are used in turn. A replica which fails to give a connection is skipped until the periodic health check
+ * succeeds again, and the primary serves the reads when no replica is healthy.
+ */
+public class RoutingConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory>, Disposable {
+
+    /**
+     * Subscriber context key telling whether the transaction being begun is read-only, see {@link MeteredTransactionManager}.
+     */
+    public static final String READ_ONLY = RoutingConnectionFactory.class.getName() + ".readOnly";
+
+    private static final Duration HEALTH_CHECK_TIMEOUT = Duration.ofSeconds(5);
+
+    private final Logger log = LoggerFactory.getLogger(RoutingConnectionFactory.class);
+
+    private final ConnectionFactory primary;
+    private final List<Replica> replicas;
+    private final long readYourWritesWindowNanos;
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+    private final Disposable healthCheck;
+
+    public RoutingConnectionFactory(
+        ConnectionFactory primary,
+        List<ConnectionFactory> replicas,
+        Duration readYourWritesWindow,
+        Duration healthCheckInterval,
+        MeterRegistry meterRegistry
+    ) {
+        this.primary = primary;
+        this.replicas = IntStream
+            .range(0, replicas.size())
+            .mapToObj(i -> new Replica("replica" + i, replicas.get(i)))
+            .collect(Collectors.toList());
+        this.readYourWritesWindowNanos = readYourWritesWindow.toNanos();
+        this.primaryConnections = routedCounter("primary", meterRegistry);
+        this.replicaConnections = routedCounter("replica", meterRegistry);
+        this.healthCheck = Flux.interval(healthCheckInterval).concatMap(tick -> checkReplicas()).subscribe();
+    }
+
+    private static Counter routedCounter(String target, MeterRegistry meterRegistry) {
+        return Counter
+            .builder("r2dbc.routing.connections")
+            .description("Connections taken from the primary database or from a replica")
+            .tag("target", target)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono
+            .subscriberContext()
+            .flatMap(
+                context ->
+                    isReadOnly(context)
+                        .flatMap(
+                            readOnly -> {
+                                if (readOnly) {
+                                    return SecurityUtils
+                                        .getCurrentUserLogin()
+                                        .filter(this::wroteRecently)
+                                        .flatMap(login -> createFromPrimary())
+                                        .switchIfEmpty(Mono.defer(this::createFromReplica));
+                                }
+                                if (context.hasKey(READ_ONLY)) {
+                                    return SecurityUtils
+                                        .getCurrentUserLogin()
+                                        .doOnNext(login -> lastWrites.put(login, System.nanoTime()))
+                                        .then(createFromPrimary());
+                                }
+                                return createFromPrimary();
+                            }
+                        )
+            );
+    }
+
+    private static Mono<Boolean> isReadOnly(Context context) {
+        if (context.hasKey(READ_ONLY)) {
+            // a transaction is being begun
+            return Mono.just(context.get(READ_ONLY));
+        }
+        // a statement run outside of a transaction, the synchronization still knows whether the method is read-only
+        return TransactionSynchronizationManager
+            .forCurrentTransaction()
+            .map(synchronizationManager -> synchronizationManager.isCurrentTransactionReadOnly())
+            .onErrorResume(NoTransactionException.class, e -> Mono.just(false));
+    }
+
+    private boolean wroteRecently(String login) {
+        Long lastWrite = lastWrites.get(login);
+        return lastWrite != null && System.nanoTime() - lastWrite < readYourWritesWindowNanos;
+    }
+
+    private Mono<Connection> createFromPrimary() {
+        return Mono.from(primary.create()).doOnNext(connection -> primaryConnections.increment());
+    }
+
+    private Mono<Connection> createFromReplica() {
+        Replica replica = nextHealthyReplica();
+        if (replica == null) {
+            return createFromPrimary();
+        }
+        return Mono
+            .<Connection>from(replica.connectionFactory.create())
+            .doOnNext(connection -> replicaConnections.increment())
+            .onErrorResume(
+                e -> {
+                    log.warn("Replica {} is unavailable, reads go to the other databases: {}", replica.name, e.getMessage());
+                    replica.healthy = false;
+                    return createFromReplica();
+                }
+            );
+    }
+
+    private Replica nextHealthyReplica() {
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks every replica with a trivial query, and forgets the writes which are out of the read-your-writes window.
+     */
+    Mono<Void> checkReplicas() {
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(lastWrite -> now - lastWrite >= readYourWritesWindowNanos);
+        return Flux.fromIterable(replicas).flatMap(Replica::check).then();
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return primary.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return primary;
+    }
+
+    @Override
+    public void dispose() {
+        healthCheck.dispose();
+        if (primary instanceof Disposable) {
+            ((Disposable) primary).dispose();
+        }
+        for (Replica replica : replicas) {
+            if (replica.connectionFactory instanceof Disposable) {
+                ((Disposable) replica.connectionFactory).dispose();
+            }
+        }
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return healthCheck.isDisposed();
+    }
+
+    private final class Replica {
+
+        private final String name;
+        private final ConnectionFactory connectionFactory;
+        private volatile boolean healthy = true;
+
+        private Replica(String name, ConnectionFactory connectionFactory) {
+            this.name = name;
+            this.connectionFactory = connectionFactory;
+        }
+
+        private Mono<Void> check() {
+            return Mono
+                .usingWhen(
+                    connectionFactory.create(),
+                    connection ->
+                        Flux
+                            .from(connection.createStatement("SELECT 1").execute())
+                            .flatMap(result -> result.map((row, metadata) -> 1))
+                            .then(),
+                    Connection::close
+                )
+                .timeout(HEALTH_CHECK_TIMEOUT)
+                .doOnSuccess(
+                    ok -> {
+                        if (!healthy) {
+                            log.info("Replica {} is available again", name);
+                        }
+                        healthy = true;
+                    }
+                )
+                .onErrorResume(
+                    e -> {
+                        if (healthy) {
+                            log.warn("Replica {} failed its health check: {}", name, e.getMessage());
+                        }
+                        healthy = false;
+                        return Mono.empty();
+                    }
+                );
+        }
+    }
+}
@@ -5,8 +5,12 @@ import static org.springframework.security.web.server.util.matcher.ServerWebExch
 import com.jhipster.demo.blog.security.AuthoritiesConstants;
 import com.jhipster.demo.blog.security.SecurityUtils;
 import com.jhipster.demo.blog.security.oauth2.AudienceValidator;
+import com.jhipster.demo.blog.security.oauth2.CachingJwtDecoder;
+import com.jhipster.demo.blog.security.oauth2.CachingOAuth2UserService;
 import com.jhipster.demo.blog.security.oauth2.JwtGrantedAuthorityConverter;
+import com.jhipster.demo.blog.security.oauth2.OidcMetadataCache;
 import com.jhipster.demo.blog.web.filter.SpaWebFilter;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.HashSet;
 import java.util.Set;
 import org.springframework.beans.factory.annotation.Value;
@@ -22,6 +26,7 @@ import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.client.oidc.userinfo.OidcReactiveOAuth2UserService;
 import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserRequest;
+import org.springframework.security.oauth2.client.userinfo.DefaultReactiveOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.ReactiveOAuth2UserService;
 import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2TokenValidator;
@@ -37,6 +42,7 @@ import org.springframework.security.web.server.header.ReferrerPolicyServerHttpHe
 import org.springframework.security.web.server.header.ReferrerPolicyServerHttpHeadersWriter;
 import org.springframework.security.web.server.util.matcher.NegatedServerWebExchangeMatcher;
 import org.springframework.security.web.server.util.matcher.OrServerWebExchangeMatcher;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.zalando.problem.spring.webflux.advice.security.SecurityProblemSupport;
 import reactor.core.publisher.Mono;
 import tech.jhipster.config.JHipsterProperties;
@@ -54,13 +60,26 @@ public class SecurityConfiguration {
 
     private final SecurityProblemSupport problemSupport;
 
-    public SecurityConfiguration(JHipsterProperties jHipsterProperties, SecurityProblemSupport problemSupport) {
+    private final ApplicationProperties applicationProperties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final JwtGrantedAuthorityConverter jwtGrantedAuthorityConverter = new JwtGrantedAuthorityConverter();
+
+    public SecurityConfiguration(
+        JHipsterProperties jHipsterProperties,
+        SecurityProblemSupport problemSupport,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
         this.jHipsterProperties = jHipsterProperties;
         this.problemSupport = problemSupport;
+        this.applicationProperties = applicationProperties;
+        this.meterRegistry = meterRegistry;
     }
 
     @Bean
-    public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http) {
+    public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http, ReactiveJwtDecoder jwtDecoder) {
         // @formatter:off
         http
             .securityMatcher(new NegatedServerWebExchangeMatcher(new OrServerWebExchangeMatcher(
@@ -103,15 +122,20 @@ public class SecurityConfiguration {
             .and()
             .oauth2ResourceServer()
                 .jwt()
-                .jwtAuthenticationConverter(jwtAuthenticationConverter());
+                .jwtAuthenticationConverter(jwtAuthenticationConverter(jwtDecoder));
         http.oauth2Client();
         // @formatter:on
         return http.build();
     }
 
-    Converter<Jwt, Mono<AbstractAuthenticationToken>> jwtAuthenticationConverter() {
+    Converter<Jwt, Mono<AbstractAuthenticationToken>> jwtAuthenticationConverter(ReactiveJwtDecoder jwtDecoder) {
         JwtAuthenticationConverter jwtAuthenticationConverter = new JwtAuthenticationConverter();
-        jwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(new JwtGrantedAuthorityConverter());
+        if (jwtDecoder instanceof CachingJwtDecoder) {
+            // the authorities computed when the token was verified
+            jwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(((CachingJwtDecoder) jwtDecoder)::getAuthorities);
+        } else {
+            jwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(jwtGrantedAuthorityConverter);
+        }
         return new ReactiveJwtAuthenticationConverterAdapter(jwtAuthenticationConverter);
     }
 
@@ -123,6 +147,9 @@ public class SecurityConfiguration {
     @Bean
     public ReactiveOAuth2UserService<OidcUserRequest, OidcUser> oidcUserService() {
         final OidcReactiveOAuth2UserService delegate = new OidcReactiveOAuth2UserService();
+        delegate.setOauth2UserService(
+            new CachingOAuth2UserService(new DefaultReactiveOAuth2UserService(), applicationProperties.getOidcCache(), meterRegistry)
+        );
 
         return userRequest -> {
             // Delegate to the default implementation for loading a user
@@ -151,9 +178,15 @@ public class SecurityConfiguration {
         };
     }
 
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    OidcMetadataCache oidcMetadataCache(WebClient.Builder webClientBuilder) {
+        return new OidcMetadataCache(issuerUri, applicationProperties.getOidcCache(), webClientBuilder.build());
+    }
+
     @Bean
-    ReactiveJwtDecoder jwtDecoder() {
-        NimbusReactiveJwtDecoder jwtDecoder = (NimbusReactiveJwtDecoder) ReactiveJwtDecoders.fromOidcIssuerLocation(issuerUri);
+    ReactiveJwtDecoder jwtDecoder(OidcMetadataCache oidcMetadataCache) {
+        // the keys of the issuer from the local cache, the startup doesn't wait for the discovery
+        NimbusReactiveJwtDecoder jwtDecoder = NimbusReactiveJwtDecoder.withJwkSource(oidcMetadataCache.jwkSource()).build();
 
         OAuth2TokenValidator<Jwt> audienceValidator = new AudienceValidator(jHipsterProperties.getSecurity().getOauth2().getAudience());
         OAuth2TokenValidator<Jwt> withIssuer = JwtValidators.createDefaultWithIssuer(issuerUri);
@@ -161,6 +194,6 @@ public class SecurityConfiguration {
 
         jwtDecoder.setJwtValidator(withAudience);
 
-        return jwtDecoder;
+        return new CachingJwtDecoder(jwtDecoder, jwtGrantedAuthorityConverter, applicationProperties.getJwtCache(), meterRegistry);
     }
 }
@@ -26,7 +26,10 @@ public class Post implements Serializable {
     @Column("title")
     private String title;
 
-    @Column("content")
+    /**
+     * Stored in the {@code post_content} table, and read by the repository only for the queries returning full posts.
+     */
+    @Transient
     private String content;
 
     @NotNull
@@ -0,0 +1,120 @@
+package com.jhipster.demo.blog.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A read-only view of a {@link Post} for lists: it carries an excerpt of the content instead of the full content.
+ */
+public class PostSummary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The maximum number of characters of the content in the excerpt.
+     */
+    public static final int EXCERPT_LENGTH = 200;
+
+    private Long id;
+
+    private String title;
+
+    private String excerpt;
+
+    private Instant date;
+
+    @JsonIgnoreProperties(value = { "user" }, allowSetters = true)
+    private Blog blog;
+
+    private Long blogId;
+
+    @JsonIgnoreProperties(value = { "entries" }, allowSetters = true)
+    private Set<Tag> tags = new HashSet<>();
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return this.title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getExcerpt() {
+        return this.excerpt;
+    }
+
+    public void setExcerpt(String excerpt) {
+        this.excerpt = excerpt;
+    }
+
+    public Instant getDate() {
+        return this.date;
+    }
+
+    public void setDate(Instant date) {
+        this.date = date;
+    }
+
+    public Blog getBlog() {
+        return this.blog;
+    }
+
+    public void setBlog(Blog blog) {
+        this.blog = blog;
+        this.blogId = blog != null ? blog.getId() : null;
+    }
+
+    public Long getBlogId() {
+        return this.blogId;
+    }
+
+    public void setBlogId(Long blog) {
+        this.blogId = blog;
+    }
+
+    public Set<Tag> getTags() {
+        return this.tags;
+    }
+
+    public void setTags(Set<Tag> tags) {
+        this.tags = tags;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PostSummary)) {
+            return false;
+        }
+        return id != null && id.equals(((PostSummary) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PostSummary{" +
+            "id=" + getId() +
+            ", title='" + getTitle() + "'" +
+            ", excerpt='" + getExcerpt() + "'" +
+            ", date='" + getDate() + "'" +
+            "}";
+    }
+}
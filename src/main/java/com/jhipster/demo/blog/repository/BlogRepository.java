@@ -1,6 +1,7 @@
 package com.jhipster.demo.blog.repository;
 
 import com.jhipster.demo.blog.domain.Blog;
+import com.jhipster.demo.blog.service.CachedQuery;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
@@ -23,6 +24,7 @@ public interface BlogRepository extends R2dbcRepository<Blog, Long>, BlogReposit
 
     // just to avoid having unambigous methods
     @Override
+    @CachedQuery
     Flux<Blog> findAll();
 
     @Override
@@ -30,15 +32,21 @@ public interface BlogRepository extends R2dbcRepository<Blog, Long>, BlogReposit
 
     @Override
     <S extends Blog> Mono<S> save(S entity);
+
+    @Override
+    Mono<Void> deleteById(Long id);
 }
 
 interface BlogRepositoryInternal {
     <S extends Blog> Mono<S> insert(S entity);
     <S extends Blog> Mono<S> save(S entity);
     Mono<Integer> update(Blog entity);
+    Mono<Blog> partialUpdate(Blog blog);
 
     Flux<Blog> findAll();
     Mono<Blog> findById(Long id);
     Flux<Blog> findAllBy(Pageable pageable);
     Flux<Blog> findAllBy(Pageable pageable, Criteria criteria);
+
+    Mono<Void> deleteById(Long id);
 }
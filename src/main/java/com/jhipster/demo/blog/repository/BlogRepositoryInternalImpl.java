@@ -1,12 +1,18 @@
 package com.jhipster.demo.blog.repository;
 
 import com.jhipster.demo.blog.domain.Blog;
+import com.jhipster.demo.blog.domain.Post;
+import com.jhipster.demo.blog.domain.User;
 import com.jhipster.demo.blog.repository.rowmapper.BlogRowMapper;
 import com.jhipster.demo.blog.repository.rowmapper.UserRowMapper;
+import com.jhipster.demo.blog.service.EntityCache;
 import com.jhipster.demo.blog.service.EntityManager;
+import com.jhipster.demo.blog.service.EntityManager.PreparedSelect;
+import com.jhipster.demo.blog.service.QueryResultCache;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -36,6 +42,8 @@ class BlogRepositoryInternalImpl implements BlogRepositoryInternal {
     private final DatabaseClient db;
     private final ReactiveDataAccessStrategy dataAccessStrategy;
     private final EntityManager entityManager;
+    private final EntityCache entityCache;
+    private final QueryResultCache queryCache;
 
     private final UserRowMapper userMapper;
     private final BlogRowMapper blogMapper;
@@ -47,14 +55,20 @@ class BlogRepositoryInternalImpl implements BlogRepositoryInternal {
         DatabaseClient db,
         ReactiveDataAccessStrategy dataAccessStrategy,
         EntityManager entityManager,
+        EntityCache entityCache,
+        QueryResultCache queryCache,
         UserRowMapper userMapper,
         BlogRowMapper blogMapper
     ) {
         this.db = db;
         this.dataAccessStrategy = dataAccessStrategy;
         this.entityManager = entityManager;
+        this.entityCache = entityCache;
+        this.queryCache = queryCache;
         this.userMapper = userMapper;
         this.blogMapper = blogMapper;
+        // the cached blogs embed their user, which is changed and evicted by UserService
+        entityCache.addEmbedded(Blog.class, User.class);
     }
 
     @Override
@@ -64,22 +78,27 @@ class BlogRepositoryInternalImpl implements BlogRepositoryInternal {
 
     @Override
     public Flux<Blog> findAllBy(Pageable pageable, Criteria criteria) {
-        return createQuery(pageable, criteria).all();
+        return entityManager.query(createSelect(pageable, criteria), this::process);
     }
 
     RowsFetchSpec<Blog> createQuery(Pageable pageable, Criteria criteria) {
+        return db.execute(createSelect(pageable, criteria)).map(this::process);
+    }
+
+    private PreparedSelect createSelect(Pageable pageable, Criteria criteria) {
+        return entityManager.createSelect(Blog.class, "blog+user", BlogRepositoryInternalImpl::selectFrom, pageable, criteria);
+    }
+
+    private static SelectFromAndJoinCondition selectFrom() {
         List<Expression> columns = BlogSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
         columns.addAll(UserSqlHelper.getColumns(userTable, "user"));
-        SelectFromAndJoinCondition selectFrom = Select
+        return Select
             .builder()
             .select(columns)
             .from(entityTable)
             .leftOuterJoin(userTable)
             .on(Column.create("user_id", entityTable))
             .equals(Column.create("id", userTable));
-
-        String select = entityManager.createSelect(selectFrom, Blog.class, pageable/*, criteria */);
-        return db.execute(select).map(this::process);
     }
 
     @Override
@@ -89,18 +108,18 @@ class BlogRepositoryInternalImpl implements BlogRepositoryInternal {
 
     @Override
     public Mono<Blog> findById(Long id) {
-        return createQuery(null, Criteria.where("id").is(id)).one();
+        return entityCache.get(Blog.class, id, () -> createQuery(null, Criteria.where("id").is(id)).one());
     }
 
     private Blog process(Row row, RowMetadata metadata) {
-        Blog entity = blogMapper.apply(row, "e");
-        entity.setUser(userMapper.apply(row, "user"));
+        Blog entity = blogMapper.apply(row, metadata, "e");
+        entity.setUser(userMapper.apply(row, metadata, "user"));
         return entity;
     }
 
     @Override
     public <S extends Blog> Mono<S> insert(S entity) {
-        return entityManager.insert(entity);
+        return entityManager.insert(entity, blogMapper.toRow(entity), Long.class, Blog::setId);
     }
 
     @Override
@@ -122,7 +141,43 @@ class BlogRepositoryInternalImpl implements BlogRepositoryInternal {
 
     @Override
     public Mono<Integer> update(Blog entity) {
-        return db.update().table(Blog.class).using(entity).fetch().rowsUpdated();
+        return db
+            .update()
+            .table(Blog.class)
+            .using(entity)
+            .fetch()
+            .rowsUpdated()
+            .flatMap(updated -> evict(entity.getId()).then(queryCache.invalidate("blog")).thenReturn(updated));
+    }
+
+    /**
+     * Writes the non-null fields of the given blog, without reading it first.
+     *
+     * @return the updated blog, or empty if there is no blog with this id.
+     */
+    @Override
+    public Mono<Blog> partialUpdate(Blog blog) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        if (blog.getName() != null) {
+            columns.put("name", blog.getName());
+        }
+        if (blog.getHandle() != null) {
+            columns.put("handle", blog.getHandle());
+        }
+        return entityManager
+            .updateColumns(Blog.class, blog.getId(), columns)
+            .filter(updated -> updated > 0)
+            .flatMap(updated -> evict(blog.getId()).then(Mono.defer(() -> findById(blog.getId()))));
+    }
+
+    @Override
+    public Mono<Void> deleteById(Long entityId) {
+        return entityManager.delete(Blog.class, entityId).then(evict(entityId));
+    }
+
+    private Mono<Void> evict(Long id) {
+        // the cached posts embed their blog
+        return entityCache.evict(Blog.class, id).then(entityCache.evictAll(Post.class));
     }
 }
 
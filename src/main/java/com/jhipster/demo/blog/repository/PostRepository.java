@@ -1,7 +1,12 @@
 package com.jhipster.demo.blog.repository;
 
 import com.jhipster.demo.blog.domain.Post;
+import com.jhipster.demo.blog.domain.PostSummary;
+import com.jhipster.demo.blog.service.CachedQuery;
+import java.time.Instant;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.data.relational.core.query.Criteria;
@@ -53,11 +58,32 @@ interface PostRepositoryInternal {
     <S extends Post> Mono<S> insert(S entity);
     <S extends Post> Mono<S> save(S entity);
     Mono<Integer> update(Post entity);
+    Mono<Post> partialUpdate(Post post);
 
     Flux<Post> findAll();
     Mono<Post> findById(Long id);
     Flux<Post> findAllBy(Pageable pageable);
     Flux<Post> findAllBy(Pageable pageable, Criteria criteria);
+    Flux<Post> findAllAfter(Instant date, Long id, int limit);
+    Mono<Page<Post>> findPageBy(Pageable pageable);
+    Mono<Page<Post>> findPageWithEagerRelationships(Pageable pageable);
+    Mono<Slice<Post>> findSliceBy(Pageable pageable);
+    Mono<Slice<Post>> findSliceWithEagerRelationships(Pageable pageable);
+    Flux<PostSummary> findSummariesAfter(Instant date, Long id, int limit);
+
+    @CachedQuery
+    Mono<Page<PostSummary>> findSummaryPageBy(Pageable pageable);
+
+    @CachedQuery
+    Mono<Page<PostSummary>> findSummaryPageWithEagerRelationships(Pageable pageable);
+
+    @CachedQuery
+    Mono<Slice<PostSummary>> findSummarySliceBy(Pageable pageable);
+
+    @CachedQuery
+    Mono<Slice<PostSummary>> findSummarySliceWithEagerRelationships(Pageable pageable);
+
+    Mono<Long> count();
 
     Mono<Post> findOneWithEagerRelationships(Long id);
 
@@ -1,20 +1,39 @@
 package com.jhipster.demo.blog.repository;
 
 import com.jhipster.demo.blog.domain.Post;
+import com.jhipster.demo.blog.domain.PostSummary;
 import com.jhipster.demo.blog.domain.Tag;
 import com.jhipster.demo.blog.repository.rowmapper.BlogRowMapper;
 import com.jhipster.demo.blog.repository.rowmapper.PostRowMapper;
+import com.jhipster.demo.blog.repository.rowmapper.PostSummaryRowMapper;
+import com.jhipster.demo.blog.repository.rowmapper.TagRowMapper;
+import com.jhipster.demo.blog.service.ColumnConverter;
+import com.jhipster.demo.blog.service.EntityCache;
 import com.jhipster.demo.blog.service.EntityManager;
 import com.jhipster.demo.blog.service.EntityManager.LinkTable;
+import com.jhipster.demo.blog.service.EntityManager.PreparedSelect;
+import com.jhipster.demo.blog.service.PostContentCodec;
+import com.jhipster.demo.blog.service.QueryResultCache;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.Function;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.core.DatabaseClient;
 import org.springframework.data.r2dbc.core.DatabaseClient.GenericInsertSpec;
 import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
@@ -24,11 +43,13 @@ import org.springframework.data.r2dbc.mapping.SettableValue;
 import org.springframework.data.relational.core.query.Criteria;
 import org.springframework.data.relational.core.sql.Column;
 import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.Expressions;
 import org.springframework.data.relational.core.sql.Select;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
 import org.springframework.data.relational.core.sql.Table;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
 
 /**
  * Spring Data SQL reactive custom repository implementation for the Post entity.
@@ -39,12 +60,19 @@ class PostRepositoryInternalImpl implements PostRepositoryInternal {
     private final DatabaseClient db;
     private final ReactiveDataAccessStrategy dataAccessStrategy;
     private final EntityManager entityManager;
+    private final EntityCache entityCache;
+    private final QueryResultCache queryCache;
 
     private final BlogRowMapper blogMapper;
     private final PostRowMapper postMapper;
+    private final PostSummaryRowMapper postSummaryMapper;
+    private final TagRowMapper tagMapper;
+    private final ColumnConverter converter;
+    private final PostContentCodec contentCodec;
 
     private static final Table entityTable = Table.aliased("post", EntityManager.ENTITY_ALIAS);
     private static final Table blogTable = Table.aliased("blog", "blog");
+    private static final Table contentTable = Table.aliased("post_content", "post_content");
 
     private static final EntityManager.LinkTable tagLink = new LinkTable("rel_post__tag", "post_id", "tag_id");
 
@@ -52,14 +80,26 @@ class PostRepositoryInternalImpl implements PostRepositoryInternal {
         DatabaseClient db,
         ReactiveDataAccessStrategy dataAccessStrategy,
         EntityManager entityManager,
+        EntityCache entityCache,
+        QueryResultCache queryCache,
         BlogRowMapper blogMapper,
-        PostRowMapper postMapper
+        PostRowMapper postMapper,
+        PostSummaryRowMapper postSummaryMapper,
+        TagRowMapper tagMapper,
+        ColumnConverter converter,
+        PostContentCodec contentCodec
     ) {
         this.db = db;
         this.dataAccessStrategy = dataAccessStrategy;
         this.entityManager = entityManager;
+        this.entityCache = entityCache;
+        this.queryCache = queryCache;
         this.blogMapper = blogMapper;
         this.postMapper = postMapper;
+        this.postSummaryMapper = postSummaryMapper;
+        this.tagMapper = tagMapper;
+        this.converter = converter;
+        this.contentCodec = contentCodec;
     }
 
     @Override
@@ -69,22 +109,147 @@ class PostRepositoryInternalImpl implements PostRepositoryInternal {
 
     @Override
     public Flux<Post> findAllBy(Pageable pageable, Criteria criteria) {
-        return createQuery(pageable, criteria).all();
+        return createQuery(pageable, criteria).all().collectList().flatMapMany(this::fetchContent);
     }
 
     RowsFetchSpec<Post> createQuery(Pageable pageable, Criteria criteria) {
+        PreparedSelect select = entityManager.createSelect(
+            Post.class,
+            "post+blog",
+            PostRepositoryInternalImpl::selectFrom,
+            pageable,
+            criteria
+        );
+        return db.execute(select).map(this::process);
+    }
+
+    private static SelectFromAndJoinCondition selectFrom() {
         List<Expression> columns = PostSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
         columns.addAll(BlogSqlHelper.getColumns(blogTable, "blog"));
-        SelectFromAndJoinCondition selectFrom = Select
+        return Select
             .builder()
             .select(columns)
             .from(entityTable)
             .leftOuterJoin(blogTable)
             .on(Column.create("blog_id", entityTable))
             .equals(Column.create("id", blogTable));
+    }
 
-        String select = entityManager.createSelect(selectFrom, Post.class, pageable/*, criteria */);
-        return db.execute(select).map(this::process);
+    private static SelectFromAndJoinCondition selectSummaryFrom() {
+        List<Expression> columns = PostSqlHelper.getSummaryColumns(entityTable, contentTable, EntityManager.ENTITY_ALIAS);
+        columns.addAll(BlogSqlHelper.getColumns(blogTable, "blog"));
+        return Select
+            .builder()
+            .select(columns)
+            .from(entityTable)
+            .leftOuterJoin(blogTable)
+            .on(Column.create("blog_id", entityTable))
+            .equals(Column.create("id", blogTable))
+            .leftOuterJoin(contentTable)
+            .on(Column.create("id", entityTable))
+            .equals(Column.create("post_id", contentTable));
+    }
+
+    @Override
+    public Flux<Post> findAllAfter(Instant date, Long id, int limit) {
+        return findAllBy(afterPageable(limit), afterCriteria(date, id));
+    }
+
+    @Override
+    public Flux<PostSummary> findSummariesAfter(Instant date, Long id, int limit) {
+        PreparedSelect select = entityManager.createSelect(
+            Post.class,
+            "post-summary+blog",
+            PostRepositoryInternalImpl::selectSummaryFrom,
+            afterPageable(limit),
+            afterCriteria(date, id)
+        );
+        return db.execute(select).map(this::processSummary).all();
+    }
+
+    private static Pageable afterPageable(int limit) {
+        return PageRequest.of(0, limit, Sort.by(Sort.Order.desc("date"), Sort.Order.desc("id")));
+    }
+
+    private static Criteria afterCriteria(Instant date, Long id) {
+        if (date == null) {
+            return null;
+        }
+        // (date, id) < (:date, :id), written out as the row value comparison is not supported everywhere
+        return Criteria.where("date").lessThan(date).or(Criteria.where("date").is(date).and("id").lessThan(id));
+    }
+
+    @Override
+    public Mono<Page<Post>> findPageBy(Pageable pageable) {
+        return entityManager
+            .findPage(Post.class, "post+blog", PostRepositoryInternalImpl::selectFrom, pageable, null, this::process)
+            .flatMap(page -> fetchContent(page.getContent()).then(Mono.just(page)));
+    }
+
+    @Override
+    public Mono<Page<Post>> findPageWithEagerRelationships(Pageable pageable) {
+        return findPageBy(pageable).flatMap(page -> fetchTags(page.getContent()).then(Mono.just(page)));
+    }
+
+    @Override
+    public Mono<Page<PostSummary>> findSummaryPageBy(Pageable pageable) {
+        return entityManager.findPage(
+            Post.class,
+            "post-summary+blog",
+            PostRepositoryInternalImpl::selectSummaryFrom,
+            pageable,
+            null,
+            this::processSummary
+        );
+    }
+
+    @Override
+    public Mono<Page<PostSummary>> findSummaryPageWithEagerRelationships(Pageable pageable) {
+        return findSummaryPageBy(pageable).flatMap(page -> fetchSummaryTags(page.getContent()).then(Mono.just(page)));
+    }
+
+    @Override
+    public Mono<Slice<Post>> findSliceBy(Pageable pageable) {
+        PreparedSelect select = entityManager.createSliceSelect(
+            Post.class,
+            "post+blog",
+            PostRepositoryInternalImpl::selectFrom,
+            pageable,
+            null
+        );
+        return db
+            .execute(select)
+            .map(this::process)
+            .all()
+            .collectList()
+            .flatMap(rows -> fetchContent(rows).then(Mono.just(EntityManager.toSlice(rows, pageable))));
+    }
+
+    @Override
+    public Mono<Slice<Post>> findSliceWithEagerRelationships(Pageable pageable) {
+        return findSliceBy(pageable).flatMap(slice -> fetchTags(slice.getContent()).then(Mono.just(slice)));
+    }
+
+    @Override
+    public Mono<Slice<PostSummary>> findSummarySliceBy(Pageable pageable) {
+        PreparedSelect select = entityManager.createSliceSelect(
+            Post.class,
+            "post-summary+blog",
+            PostRepositoryInternalImpl::selectSummaryFrom,
+            pageable,
+            null
+        );
+        return entityManager.query(select, this::processSummary).collectList().map(rows -> EntityManager.toSlice(rows, pageable));
+    }
+
+    @Override
+    public Mono<Slice<PostSummary>> findSummarySliceWithEagerRelationships(Pageable pageable) {
+        return findSummarySliceBy(pageable).flatMap(slice -> fetchSummaryTags(slice.getContent()).then(Mono.just(slice)));
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return entityManager.count(Post.class, null);
     }
 
     @Override
@@ -94,39 +259,106 @@ class PostRepositoryInternalImpl implements PostRepositoryInternal {
 
     @Override
     public Mono<Post> findById(Long id) {
-        return createQuery(null, Criteria.where("id").is(id)).one();
+        return createQuery(null, Criteria.where("id").is(id)).one().flatMap(post -> fetchContent(List.of(post)).then(Mono.just(post)));
     }
 
     @Override
     public Mono<Post> findOneWithEagerRelationships(Long id) {
-        return findById(id);
+        return entityCache.get(Post.class, id, () -> findById(id).flatMap(post -> fetchTags(List.of(post)).thenReturn(post)));
     }
 
     @Override
     public Flux<Post> findAllWithEagerRelationships() {
-        return findAll();
+        return findAll().collectList().flatMapMany(this::fetchTags);
     }
 
     @Override
     public Flux<Post> findAllWithEagerRelationships(Pageable page) {
-        return findAllBy(page);
+        return findAllBy(page).collectList().flatMapMany(this::fetchTags);
+    }
+
+    /**
+     * Loads the content of all the given posts with a single query, and sets it on the posts.
+     * <p>
+     * The content of the posts which were not moved to {@code post_content} yet is read from the {@code post} table.
+     */
+    private Flux<Post> fetchContent(List<Post> posts) {
+        if (posts.isEmpty()) {
+            return Flux.empty();
+        }
+        Map<Long, Post> postsById = new LinkedHashMap<>();
+        posts.forEach(post -> postsById.put(post.getId(), post));
+        return db
+            .execute(
+                "SELECT e.id AS post_id, COALESCE(post_content.body, e.content) AS body, post_content.body_data AS body_data" +
+                " FROM post e LEFT OUTER JOIN post_content post_content ON post_content.post_id = e.id WHERE e.id IN (:postIds)"
+            )
+            .bind("postIds", postsById.keySet())
+            .map((row, metadata) -> Tuples.of(row.get("post_id", Long.class), Optional.ofNullable(readContent(row, metadata))))
+            .all()
+            .doOnNext(postWithContent -> postsById.get(postWithContent.getT1()).setContent(postWithContent.getT2().orElse(null)))
+            .thenMany(Flux.fromIterable(posts));
+    }
+
+    private String readContent(Row row, RowMetadata metadata) {
+        byte[] data = converter.fromRow(row, metadata, "body_data", byte[].class);
+        return data != null ? contentCodec.decode(data) : converter.fromRow(row, metadata, "body", String.class);
+    }
+
+    private Flux<Post> fetchTags(List<Post> posts) {
+        return fetchTags(posts, Post::getId, Post::setTags);
+    }
+
+    private Flux<PostSummary> fetchSummaryTags(List<PostSummary> posts) {
+        return fetchTags(posts, PostSummary::getId, PostSummary::setTags);
+    }
+
+    /**
+     * Loads the tags of all the given posts with a single query, and sets them on the posts.
+     */
+    private <T> Flux<T> fetchTags(List<T> posts, Function<T, Long> idGetter, BiConsumer<T, Set<Tag>> tagsSetter) {
+        if (posts.isEmpty()) {
+            return Flux.empty();
+        }
+        Map<Long, Set<Tag>> tagsByPostId = new LinkedHashMap<>();
+        for (T post : posts) {
+            Set<Tag> tags = new HashSet<>();
+            tagsSetter.accept(post, tags);
+            tagsByPostId.put(idGetter.apply(post), tags);
+        }
+        return db
+            .execute(
+                "SELECT link.post_id AS post_id, e.id AS e_id, e.name AS e_name FROM rel_post__tag link" +
+                " JOIN tag e ON e.id = link.tag_id WHERE link.post_id IN (:postIds)"
+            )
+            .bind("postIds", tagsByPostId.keySet())
+            .map((row, metadata) -> Tuples.of(row.get("post_id", Long.class), tagMapper.apply(row, metadata, "e")))
+            .all()
+            .doOnNext(postWithTag -> tagsByPostId.get(postWithTag.getT1()).add(postWithTag.getT2()))
+            .thenMany(Flux.fromIterable(posts));
     }
 
     private Post process(Row row, RowMetadata metadata) {
-        Post entity = postMapper.apply(row, "e");
-        entity.setBlog(blogMapper.apply(row, "blog"));
+        Post entity = postMapper.apply(row, metadata, "e");
+        entity.setBlog(blogMapper.apply(row, metadata, "blog"));
+        return entity;
+    }
+
+    private PostSummary processSummary(Row row, RowMetadata metadata) {
+        PostSummary entity = postSummaryMapper.apply(row, metadata, "e");
+        entity.setBlog(blogMapper.apply(row, metadata, "blog"));
         return entity;
     }
 
     @Override
     public <S extends Post> Mono<S> insert(S entity) {
-        return entityManager.insert(entity);
+        return entityManager.insert(entity, postMapper.toRow(entity), Long.class, Post::setId);
     }
 
     @Override
     public <S extends Post> Mono<S> save(S entity) {
         if (entity.getId() == null) {
-            return insert(entity).flatMap(savedEntity -> updateRelations(savedEntity));
+            return insert(entity).flatMap(this::insertContent).flatMap(savedEntity -> insertRelations(savedEntity));
         } else {
             return update(entity)
                 .map(
@@ -137,19 +369,99 @@ class PostRepositoryInternalImpl implements PostRepositoryInternal {
                         return entity;
                     }
                 )
-                .then(updateRelations(entity));
+                .flatMap(this::updateContent)
+                .then(updateRelations(entity))
+                .flatMap(savedEntity -> entityCache.evict(Post.class, savedEntity.getId()).thenReturn(savedEntity));
         }
     }
 
+    private <S extends Post> Mono<S> insertContent(S entity) {
+        return bindBody(db.execute("INSERT INTO post_content (post_id, body, body_data) VALUES (:postId, :body, :bodyData)"), entity)
+            .fetch()
+            .rowsUpdated()
+            .then(queryCache.invalidate("post_content"))
+            .thenReturn(entity);
+    }
+
+    /**
+     * Writes the content to {@code post_content}, and clears the copy in {@code post} left by the rows which were not migrated yet.
+     */
+    private <S extends Post> Mono<S> updateContent(S entity) {
+        String sql = "UPDATE post_content SET body = :body, body_data = :bodyData WHERE post_id = :postId";
+        Mono<Integer> update = bindBody(db.execute(sql), entity).fetch().rowsUpdated();
+        return update
+            .flatMap(
+                updated ->
+                    updated > 0
+                        ? Mono.just(updated)
+                        // the migration may have copied the row in the meantime
+                        : insertContent(entity).thenReturn(1).onErrorResume(DataIntegrityViolationException.class, e -> update)
+            )
+            .then(
+                db
+                    .execute("UPDATE post SET content = NULL WHERE id = :postId AND content IS NOT NULL")
+                    .bind("postId", entity.getId())
+                    .fetch()
+                    .rowsUpdated()
+            )
+            .then(queryCache.invalidate("post", "post_content"))
+            .thenReturn(entity);
+    }
+
+    /**
+     * Binds the content either as text or, when compression is enabled, in its encoded form.
+     */
+    private DatabaseClient.GenericExecuteSpec bindBody(DatabaseClient.GenericExecuteSpec spec, Post entity) {
+        spec = spec.bind("postId", entity.getId());
+        if (entity.getContent() == null) {
+            return spec.bindNull("body", String.class).bindNull("bodyData", byte[].class);
+        }
+        if (contentCodec.isEnabled()) {
+            return spec.bindNull("body", String.class).bind("bodyData", contentCodec.encode(entity.getContent()));
+        }
+        return spec.bind("body", entity.getContent()).bindNull("bodyData", byte[].class);
+    }
+
     @Override
     public Mono<Integer> update(Post entity) {
-        return db.update().table(Post.class).using(entity).fetch().rowsUpdated();
+        return db
+            .update()
+            .table(Post.class)
+            .using(entity)
+            .fetch()
+            .rowsUpdated()
+            .flatMap(updated -> entityCache.evict(Post.class, entity.getId()).then(queryCache.invalidate("post")).thenReturn(updated));
+    }
+
+    /**
+     * Writes the non-null fields of the given post, without reading it first and without touching its tags.
+     *
+     * @return the updated post, or empty if there is no post with this id.
+     */
+    @Override
+    public Mono<Post> partialUpdate(Post post) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        if (post.getTitle() != null) {
+            columns.put("title", post.getTitle());
+        }
+        if (post.getDate() != null) {
+            columns.put("date", post.getDate());
+        }
+        return entityManager
+            .updateColumns(Post.class, post.getId(), columns)
+            .filter(updated -> updated > 0)
+            .flatMap(updated -> post.getContent() != null ? updateContent(post) : Mono.just(post))
+            .flatMap(updated -> entityCache.evict(Post.class, post.getId()).then(Mono.defer(() -> findById(post.getId()))));
     }
 
     @Override
     public Mono<Void> deleteById(Long entityId) {
-        return deleteRelations(entityId)
-            .then(db.delete().from(Post.class).matching(Criteria.from(Criteria.where("id").is(entityId))).then());
+        return deleteRelations(entityId).then(entityManager.delete(Post.class, entityId)).then(entityCache.evict(Post.class, entityId));
+    }
+
+    protected <S extends Post> Mono<S> insertRelations(S entity) {
+        Mono<Void> result = entityManager.insertLinkTable(tagLink, entity.getId(), entity.getTags().stream().map(Tag::getId)).then();
+        return result.thenReturn(entity);
     }
 
     protected <S extends Post> Mono<S> updateRelations(S entity) {
@@ -164,11 +476,50 @@ class PostRepositoryInternalImpl implements PostRepositoryInternal {
 
 class PostSqlHelper {
 
+    // Enough of the encoded content for the excerpt, even when it's compressed.
+    static final int EXCERPT_DATA_LENGTH = 1024;
+
     static List<Expression> getColumns(Table table, String columnPrefix) {
         List<Expression> columns = new ArrayList<>();
         columns.add(Column.aliased("id", table, columnPrefix + "_id"));
         columns.add(Column.aliased("title", table, columnPrefix + "_title"));
-        columns.add(Column.aliased("content", table, columnPrefix + "_content"));
+        columns.add(Column.aliased("date", table, columnPrefix + "_date"));
+
+        columns.add(Column.aliased("blog_id", table, columnPrefix + "_blog_id"));
+        return columns;
+    }
+
+    /**
+     * The columns of a {@link PostSummary}: the content itself is left in the database, only its first characters are read.
+     */
+    static List<Expression> getSummaryColumns(Table table, Table contentTable, String columnPrefix) {
+        List<Expression> columns = new ArrayList<>();
+        columns.add(Column.aliased("id", table, columnPrefix + "_id"));
+        columns.add(Column.aliased("title", table, columnPrefix + "_title"));
+        columns.add(
+            Expressions.just(
+                "SUBSTRING(COALESCE(" +
+                contentTable.getReferenceName() +
+                ".body, " +
+                table.getReferenceName() +
+                ".content), 1, " +
+                PostSummary.EXCERPT_LENGTH +
+                ") AS " +
+                columnPrefix +
+                "_excerpt"
+            )
+        );
+        columns.add(
+            Expressions.just(
+                "SUBSTRING(" +
+                contentTable.getReferenceName() +
+                ".body_data, 1, " +
+                EXCERPT_DATA_LENGTH +
+                ") AS " +
+                columnPrefix +
+                "_excerpt_data"
+            )
+        );
         columns.add(Column.aliased("date", table, columnPrefix + "_date"));
 
         columns.add(Column.aliased("blog_id", table, columnPrefix + "_blog_id"));
@@ -1,7 +1,10 @@
 package com.jhipster.demo.blog.repository;
 
 import com.jhipster.demo.blog.domain.Tag;
+import com.jhipster.demo.blog.service.CachedQuery;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.data.relational.core.query.Criteria;
@@ -26,6 +29,9 @@ public interface TagRepository extends R2dbcRepository<Tag, Long>, TagRepository
 
     @Override
     <S extends Tag> Mono<S> save(S entity);
+
+    @Override
+    Mono<Void> deleteById(Long id);
 }
 
 interface TagRepositoryInternal {
@@ -37,4 +43,15 @@ interface TagRepositoryInternal {
     Mono<Tag> findById(Long id);
     Flux<Tag> findAllBy(Pageable pageable);
     Flux<Tag> findAllBy(Pageable pageable, Criteria criteria);
+    Flux<Tag> findAllAfter(String name, Long id, int limit);
+
+    @CachedQuery
+    Mono<Page<Tag>> findPageBy(Pageable pageable);
+
+    @CachedQuery
+    Mono<Slice<Tag>> findSliceBy(Pageable pageable);
+
+    Mono<Long> count();
+
+    Mono<Void> deleteById(Long id);
 }
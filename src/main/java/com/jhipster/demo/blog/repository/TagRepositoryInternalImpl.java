@@ -1,8 +1,12 @@
 package com.jhipster.demo.blog.repository;
 
+import com.jhipster.demo.blog.domain.Post;
 import com.jhipster.demo.blog.domain.Tag;
 import com.jhipster.demo.blog.repository.rowmapper.TagRowMapper;
+import com.jhipster.demo.blog.service.EntityCache;
 import com.jhipster.demo.blog.service.EntityManager;
+import com.jhipster.demo.blog.service.EntityManager.PreparedSelect;
+import com.jhipster.demo.blog.service.QueryResultCache;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
 import java.util.ArrayList;
@@ -10,7 +14,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.function.BiFunction;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.core.DatabaseClient;
 import org.springframework.data.r2dbc.core.DatabaseClient.GenericInsertSpec;
 import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
@@ -35,6 +43,8 @@ class TagRepositoryInternalImpl implements TagRepositoryInternal {
     private final DatabaseClient db;
     private final ReactiveDataAccessStrategy dataAccessStrategy;
     private final EntityManager entityManager;
+    private final EntityCache entityCache;
+    private final QueryResultCache queryCache;
 
     private final TagRowMapper tagMapper;
 
@@ -44,11 +54,15 @@ class TagRepositoryInternalImpl implements TagRepositoryInternal {
         DatabaseClient db,
         ReactiveDataAccessStrategy dataAccessStrategy,
         EntityManager entityManager,
+        EntityCache entityCache,
+        QueryResultCache queryCache,
         TagRowMapper tagMapper
     ) {
         this.db = db;
         this.dataAccessStrategy = dataAccessStrategy;
         this.entityManager = entityManager;
+        this.entityCache = entityCache;
+        this.queryCache = queryCache;
         this.tagMapper = tagMapper;
     }
 
@@ -59,15 +73,47 @@ class TagRepositoryInternalImpl implements TagRepositoryInternal {
 
     @Override
     public Flux<Tag> findAllBy(Pageable pageable, Criteria criteria) {
-        return createQuery(pageable, criteria).all();
+        return entityManager.query(createSelect(pageable, criteria), this::process);
     }
 
     RowsFetchSpec<Tag> createQuery(Pageable pageable, Criteria criteria) {
+        return db.execute(createSelect(pageable, criteria)).map(this::process);
+    }
+
+    private PreparedSelect createSelect(Pageable pageable, Criteria criteria) {
+        return entityManager.createSelect(Tag.class, "tag", TagRepositoryInternalImpl::selectFrom, pageable, criteria);
+    }
+
+    private static SelectFromAndJoin selectFrom() {
         List<Expression> columns = TagSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
-        SelectFromAndJoin selectFrom = Select.builder().select(columns).from(entityTable);
+        return Select.builder().select(columns).from(entityTable);
+    }
 
-        String select = entityManager.createSelect(selectFrom, Tag.class, pageable/*, criteria */);
-        return db.execute(select).map(this::process);
+    @Override
+    public Flux<Tag> findAllAfter(String name, Long id, int limit) {
+        Pageable pageable = PageRequest.of(0, limit, Sort.by(Sort.Order.asc("name"), Sort.Order.asc("id")));
+        Criteria criteria = null;
+        if (name != null) {
+            // (name, id) > (:name, :id), written out as the row value comparison is not supported everywhere
+            criteria = Criteria.where("name").greaterThan(name).or(Criteria.where("name").is(name).and("id").greaterThan(id));
+        }
+        return findAllBy(pageable, criteria);
+    }
+
+    @Override
+    public Mono<Page<Tag>> findPageBy(Pageable pageable) {
+        return entityManager.findPage(Tag.class, "tag", TagRepositoryInternalImpl::selectFrom, pageable, null, this::process);
+    }
+
+    @Override
+    public Mono<Slice<Tag>> findSliceBy(Pageable pageable) {
+        PreparedSelect select = entityManager.createSliceSelect(Tag.class, "tag", TagRepositoryInternalImpl::selectFrom, pageable, null);
+        return entityManager.query(select, this::process).collectList().map(rows -> EntityManager.toSlice(rows, pageable));
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return entityManager.count(Tag.class, null);
     }
 
     @Override
@@ -77,17 +123,17 @@ class TagRepositoryInternalImpl implements TagRepositoryInternal {
 
     @Override
     public Mono<Tag> findById(Long id) {
-        return createQuery(null, Criteria.where("id").is(id)).one();
+        return entityCache.get(Tag.class, id, () -> createQuery(null, Criteria.where("id").is(id)).one());
     }
 
     private Tag process(Row row, RowMetadata metadata) {
-        Tag entity = tagMapper.apply(row, "e");
+        Tag entity = tagMapper.apply(row, metadata, "e");
         return entity;
     }
 
     @Override
     public <S extends Tag> Mono<S> insert(S entity) {
-        return entityManager.insert(entity);
+        return entityManager.insert(entity, tagMapper.toRow(entity), Long.class, Tag::setId);
     }
 
     @Override
@@ -109,7 +155,23 @@ class TagRepositoryInternalImpl implements TagRepositoryInternal {
 
     @Override
     public Mono<Integer> update(Tag entity) {
-        return db.update().table(Tag.class).using(entity).fetch().rowsUpdated();
+        return db
+            .update()
+            .table(Tag.class)
+            .using(entity)
+            .fetch()
+            .rowsUpdated()
+            .flatMap(updated -> evict(entity.getId()).then(queryCache.invalidate("tag")).thenReturn(updated));
+    }
+
+    @Override
+    public Mono<Void> deleteById(Long entityId) {
+        return entityManager.delete(Tag.class, entityId).then(evict(entityId));
+    }
+
+    private Mono<Void> evict(Long id) {
+        // the cached posts embed their tags
+        return entityCache.evict(Tag.class, id).then(entityCache.evictAll(Post.class));
     }
 }
 
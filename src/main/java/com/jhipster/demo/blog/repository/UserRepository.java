@@ -2,18 +2,30 @@ package com.jhipster.demo.blog.repository;
 
 import com.jhipster.demo.blog.domain.Authority;
 import com.jhipster.demo.blog.domain.User;
+import com.jhipster.demo.blog.repository.rowmapper.UserRowMapper;
+import com.jhipster.demo.blog.service.EntityManager;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.DatabaseClient;
-import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
+import org.springframework.data.r2dbc.core.DatabaseClient.GenericExecuteSpec;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.data.relational.core.query.Criteria;
 import org.springframework.data.relational.core.sql.Column;
 import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.Select;
+import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
@@ -33,9 +45,6 @@ public interface UserRepository extends R2dbcRepository<User, String>, UserRepos
 
     Mono<Long> count();
 
-    @Query("INSERT INTO jhi_user_authority VALUES(:userId, :authority)")
-    Mono<Void> saveUserAuthority(String userId, String authority);
-
     @Query("DELETE FROM jhi_user_authority")
     Mono<Void> deleteAllUserAuthorities();
 }
@@ -43,70 +52,202 @@ public interface UserRepository extends R2dbcRepository<User, String>, UserRepos
 interface UserRepositoryInternal {
     Mono<User> findOneWithAuthoritiesByLogin(String login);
 
+    Flux<User> findAllWithAuthoritiesByLogins(Collection<String> logins);
+
     Mono<User> create(User user);
+
+    Mono<Integer> updateColumns(String id, Map<String, Object> columns);
+
+    Mono<Integer> addUserAuthorities(String userId, Collection<String> authorities);
+
+    Mono<Integer> setUserAuthorities(String userId, Collection<String> authorities);
+
+    Mono<Page<User>> findPageBy(Pageable pageable);
+
+    Mono<Long> count();
+
+    Mono<Void> deleteAll();
 }
 
 class UserRepositoryInternalImpl implements UserRepositoryInternal {
 
+    private static final Table entityTable = Table.aliased("jhi_user", EntityManager.ENTITY_ALIAS);
+
+    private static final String FIND_ONE_BY_LOGIN = "SELECT u.* FROM jhi_user u WHERE u.login = :login";
+    private static final String FIND_ALL_BY_LOGINS = "SELECT u.* FROM jhi_user u WHERE u.login IN (:logins)";
+
     private final DatabaseClient db;
-    private final ReactiveDataAccessStrategy dataAccessStrategy;
+    private final EntityManager entityManager;
+    private final UserRowMapper userMapper;
 
-    public UserRepositoryInternalImpl(DatabaseClient db, ReactiveDataAccessStrategy dataAccessStrategy) {
+    public UserRepositoryInternalImpl(DatabaseClient db, EntityManager entityManager, UserRowMapper userMapper) {
         this.db = db;
-        this.dataAccessStrategy = dataAccessStrategy;
+        this.entityManager = entityManager;
+        this.userMapper = userMapper;
     }
 
     @Override
     public Mono<User> findOneWithAuthoritiesByLogin(String login) {
-        return findOneWithAuthoritiesBy("login", login);
+        return db
+            .execute(FIND_ONE_BY_LOGIN)
+            .bind("login", login)
+            .map(this::mapUser)
+            .one()
+            .flatMap(user -> fetchAuthorities(List.of(user)).next());
     }
 
-    private Mono<User> findOneWithAuthoritiesBy(String fieldName, Object fieldValue) {
+    @Override
+    public Flux<User> findAllWithAuthoritiesByLogins(Collection<String> logins) {
+        if (logins.isEmpty()) {
+            return Flux.empty();
+        }
         return db
-            .execute(
-                "SELECT * FROM jhi_user u LEFT JOIN jhi_user_authority ua ON u.id=ua.user_id WHERE u." + fieldName + " = :" + fieldName
-            )
-            .bind(fieldName, fieldValue)
-            .map(
-                (row, metadata) ->
-                    Tuples.of(
-                        dataAccessStrategy.getRowMapper(User.class).apply(row, metadata),
-                        Optional.ofNullable(row.get("authority_name", String.class))
-                    )
-            )
+            .execute(FIND_ALL_BY_LOGINS)
+            .bind("logins", logins)
+            .map(this::mapUser)
             .all()
             .collectList()
-            .filter(l -> !l.isEmpty())
-            .map(
-                l -> {
-                    User user = l.get(0).getT1();
-                    user.setAuthorities(
-                        l
-                            .stream()
-                            .filter(t -> t.getT2().isPresent())
-                            .map(
-                                t -> {
-                                    Authority authority = new Authority();
-                                    authority.setName(t.getT2().get());
-                                    return authority;
-                                }
-                            )
-                            .collect(Collectors.toSet())
-                    );
-                    return user;
+            .flatMapMany(this::fetchAuthorities);
+    }
+
+    private User mapUser(Row row, RowMetadata metadata) {
+        // the columns of u.* are not prefixed
+        return userMapper.apply(row, metadata, "");
+    }
+
+    /**
+     * Loads the authorities of all the given users with a single query, and sets them on the users.
+     * <p>
+     * The authority rows are read one by one, so no aggregate of the names can be truncated by the database.
+     */
+    private Flux<User> fetchAuthorities(List<User> users) {
+        if (users.isEmpty()) {
+            return Flux.empty();
+        }
+        Map<String, Set<Authority>> authoritiesByUserId = new LinkedHashMap<>();
+        for (User user : users) {
+            Set<Authority> authorities = new HashSet<>();
+            user.setAuthorities(authorities);
+            authoritiesByUserId.put(user.getId(), authorities);
+        }
+        return db
+            .execute("SELECT user_id, authority_name FROM jhi_user_authority WHERE user_id IN (:userIds)")
+            .bind("userIds", authoritiesByUserId.keySet())
+            .map((row, metadata) -> Tuples.of(row.get("user_id", String.class), row.get("authority_name", String.class)))
+            .all()
+            .doOnNext(
+                userWithAuthority -> {
+                    Authority authority = new Authority();
+                    authority.setName(userWithAuthority.getT2());
+                    authoritiesByUserId.get(userWithAuthority.getT1()).add(authority);
                 }
-            );
+            )
+            .thenMany(Flux.fromIterable(users));
     }
 
     @Override
     public Mono<User> create(User user) {
+        return entityManager.insert(user, userMapper.toRow(user), String.class, User::setId);
+    }
+
+    @Override
+    public Mono<Integer> updateColumns(String id, Map<String, Object> columns) {
+        return entityManager.updateColumns(User.class, id, columns);
+    }
+
+    @Override
+    public Mono<Integer> addUserAuthorities(String userId, Collection<String> authorities) {
+        return writeUserAuthorities(userId, authorities, false);
+    }
+
+    @Override
+    public Mono<Integer> setUserAuthorities(String userId, Collection<String> authorities) {
+        return writeUserAuthorities(userId, authorities, true);
+    }
+
+    /**
+     * Diffs the authorities of the user with the given ones, and writes the difference with one multi-row INSERT, and one
+     * DELETE when the other authorities are removed.
+     *
+     * @return the number of added and removed authorities.
+     */
+    private Mono<Integer> writeUserAuthorities(String userId, Collection<String> authorities, boolean removeOthers) {
+        if (authorities.isEmpty() && !removeOthers) {
+            return Mono.just(0);
+        }
+        return db
+            .execute("SELECT authority_name FROM jhi_user_authority WHERE user_id = :userId")
+            .bind("userId", userId)
+            .map((row, metadata) -> row.get("authority_name", String.class))
+            .all()
+            .collect(Collectors.toSet())
+            .flatMap(
+                existing -> {
+                    List<String> added = authorities
+                        .stream()
+                        .filter(name -> !existing.contains(name))
+                        .distinct()
+                        .collect(Collectors.toList());
+                    List<String> removed = removeOthers
+                        ? existing.stream().filter(name -> !authorities.contains(name)).collect(Collectors.toList())
+                        : Collections.emptyList();
+                    return deleteUserAuthorities(userId, removed)
+                        .flatMap(deleted -> insertUserAuthorities(userId, added).map(inserted -> deleted + inserted));
+                }
+            );
+    }
+
+    private Mono<Integer> insertUserAuthorities(String userId, List<String> authorities) {
+        if (authorities.isEmpty()) {
+            return Mono.just(0);
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO jhi_user_authority (user_id, authority_name) VALUES ");
+        for (int i = 0; i < authorities.size(); i++) {
+            sql.append(i > 0 ? ", " : "").append("(:userId").append(i).append(", :authority").append(i).append(")");
+        }
+        GenericExecuteSpec spec = db.execute(sql.toString());
+        for (int i = 0; i < authorities.size(); i++) {
+            spec = spec.bind("userId" + i, userId).bind("authority" + i, authorities.get(i));
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    private Mono<Integer> deleteUserAuthorities(String userId, List<String> authorities) {
+        if (authorities.isEmpty()) {
+            return Mono.just(0);
+        }
         return db
-            .insert()
-            .into(User.class)
-            .using(user)
-            .map(dataAccessStrategy.getConverter().populateIdIfNecessary(user))
-            .first()
-            .defaultIfEmpty(user);
+            .execute("DELETE FROM jhi_user_authority WHERE user_id = :userId AND authority_name IN (:authorities)")
+            .bind("userId", userId)
+            .bind("authorities", authorities)
+            .fetch()
+            .rowsUpdated();
+    }
+
+    @Override
+    public Mono<Page<User>> findPageBy(Pageable pageable) {
+        return entityManager.findPage(
+            User.class,
+            "user",
+            UserRepositoryInternalImpl::selectFrom,
+            pageable,
+            null,
+            (row, metadata) -> userMapper.apply(row, metadata, EntityManager.ENTITY_ALIAS)
+        );
+    }
+
+    private static SelectFromAndJoin selectFrom() {
+        return Select.builder().select(UserSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS)).from(entityTable);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return entityManager.count(User.class, null);
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return entityManager.deleteAll(User.class).then();
     }
 }
 
@@ -123,6 +264,10 @@ class UserSqlHelper {
         columns.add(Column.aliased("activated", table, columnPrefix + "_activated"));
         columns.add(Column.aliased("lang_key", table, columnPrefix + "_lang_key"));
         columns.add(Column.aliased("image_url", table, columnPrefix + "_image_url"));
+        columns.add(Column.aliased("created_by", table, columnPrefix + "_created_by"));
+        columns.add(Column.aliased("created_date", table, columnPrefix + "_created_date"));
+        columns.add(Column.aliased("last_modified_by", table, columnPrefix + "_last_modified_by"));
+        columns.add(Column.aliased("last_modified_date", table, columnPrefix + "_last_modified_date"));
         //columns.add(Column.aliased("activation_key", table, columnPrefix + "_activation_key"));
         //columns.add(Column.aliased("reset_key", table, columnPrefix + "_reset_key"));
         //columns.add(Column.aliased("reset_date", table, columnPrefix + "_reset_date"));
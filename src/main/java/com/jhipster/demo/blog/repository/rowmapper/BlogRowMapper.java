@@ -2,33 +2,70 @@ package com.jhipster.demo.blog.repository.rowmapper;
 
 import com.jhipster.demo.blog.domain.Blog;
 import com.jhipster.demo.blog.service.ColumnConverter;
+import com.jhipster.demo.blog.service.ColumnConverter.ColumnReader;
+import com.jhipster.demo.blog.service.ColumnConverter.ColumnResolver;
 import io.r2dbc.spi.Row;
-import java.util.function.BiFunction;
+import io.r2dbc.spi.RowMetadata;
+import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
 import org.springframework.stereotype.Service;
 
 /**
  * Converter between {@link Row} to {@link Blog}, with proper type conversions.
  */
 @Service
-public class BlogRowMapper implements BiFunction<Row, String, Blog> {
+public class BlogRowMapper {
 
     private final ColumnConverter converter;
+    private final ColumnResolver<Columns> columnResolver;
 
     public BlogRowMapper(ColumnConverter converter) {
         this.converter = converter;
+        this.columnResolver = converter.resolver(Columns::new);
     }
 
     /**
-     * Take a {@link Row} and a column prefix, and extract all the fields.
+     * Take a {@link Row}, its metadata and a column prefix, and extract all the fields.
      * @return the {@link Blog} stored in the database.
      */
-    @Override
-    public Blog apply(Row row, String prefix) {
+    public Blog apply(Row row, RowMetadata metadata, String prefix) {
+        Columns columns = columnResolver.get(metadata, prefix);
         Blog entity = new Blog();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setName(converter.fromRow(row, prefix + "_name", String.class));
-        entity.setHandle(converter.fromRow(row, prefix + "_handle", String.class));
-        entity.setUserId(converter.fromRow(row, prefix + "_user_id", String.class));
+        entity.setId(columns.id.read(row));
+        entity.setName(columns.name.read(row));
+        entity.setHandle(columns.handle.read(row));
+        entity.setUserId(columns.userId.read(row));
         return entity;
     }
+
+    /**
+     * Take a {@link Blog}, and extract the values of all its columns, for an insert.
+     * @return the column values of the {@link Blog}.
+     */
+    public OutboundRow toRow(Blog entity) {
+        OutboundRow row = new OutboundRow();
+        row.put(SqlIdentifier.unquoted("id"), converter.toColumn(entity.getId(), Long.class));
+        row.put(SqlIdentifier.unquoted("name"), converter.toColumn(entity.getName(), String.class));
+        row.put(SqlIdentifier.unquoted("handle"), converter.toColumn(entity.getHandle(), String.class));
+        row.put(SqlIdentifier.unquoted("user_id"), converter.toColumn(entity.getUserId(), String.class));
+        return row;
+    }
+
+    /**
+     * The readers of the columns of a {@link Blog}, resolved once per result.
+     */
+    private final class Columns {
+
+        private final ColumnReader<Long> id;
+        private final ColumnReader<String> name;
+        private final ColumnReader<String> handle;
+        private final ColumnReader<String> userId;
+
+        Columns(RowMetadata metadata, String prefix) {
+            id = converter.reader(metadata, prefix + "_id", Long.class);
+            name = converter.reader(metadata, prefix + "_name", String.class);
+            handle = converter.reader(metadata, prefix + "_handle", String.class);
+            userId = converter.reader(metadata, prefix + "_user_id", String.class);
+        }
+    }
 }
@@ -2,35 +2,71 @@ package com.jhipster.demo.blog.repository.rowmapper;
 
 import com.jhipster.demo.blog.domain.Post;
 import com.jhipster.demo.blog.service.ColumnConverter;
+import com.jhipster.demo.blog.service.ColumnConverter.ColumnReader;
+import com.jhipster.demo.blog.service.ColumnConverter.ColumnResolver;
 import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
 import java.time.Instant;
-import java.util.function.BiFunction;
+import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
 import org.springframework.stereotype.Service;
 
 /**
  * Converter between {@link Row} to {@link Post}, with proper type conversions.
  */
 @Service
-public class PostRowMapper implements BiFunction<Row, String, Post> {
+public class PostRowMapper {
 
     private final ColumnConverter converter;
+    private final ColumnResolver<Columns> columnResolver;
 
     public PostRowMapper(ColumnConverter converter) {
         this.converter = converter;
+        this.columnResolver = converter.resolver(Columns::new);
     }
 
     /**
-     * Take a {@link Row} and a column prefix, and extract all the fields.
+     * Take a {@link Row}, its metadata and a column prefix, and extract all the fields.
      * @return the {@link Post} stored in the database.
      */
-    @Override
-    public Post apply(Row row, String prefix) {
+    public Post apply(Row row, RowMetadata metadata, String prefix) {
+        Columns columns = columnResolver.get(metadata, prefix);
         Post entity = new Post();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setTitle(converter.fromRow(row, prefix + "_title", String.class));
-        entity.setContent(converter.fromRow(row, prefix + "_content", String.class));
-        entity.setDate(converter.fromRow(row, prefix + "_date", Instant.class));
-        entity.setBlogId(converter.fromRow(row, prefix + "_blog_id", Long.class));
+        entity.setId(columns.id.read(row));
+        entity.setTitle(columns.title.read(row));
+        entity.setDate(columns.date.read(row));
+        entity.setBlogId(columns.blogId.read(row));
         return entity;
     }
+
+    /**
+     * Take a {@link Post}, and extract the values of all its columns, for an insert.
+     * @return the column values of the {@link Post}.
+     */
+    public OutboundRow toRow(Post entity) {
+        OutboundRow row = new OutboundRow();
+        row.put(SqlIdentifier.unquoted("id"), converter.toColumn(entity.getId(), Long.class));
+        row.put(SqlIdentifier.unquoted("title"), converter.toColumn(entity.getTitle(), String.class));
+        row.put(SqlIdentifier.unquoted("date"), converter.toColumn(entity.getDate(), Instant.class));
+        row.put(SqlIdentifier.unquoted("blog_id"), converter.toColumn(entity.getBlogId(), Long.class));
+        return row;
+    }
+
+    /**
+     * The readers of the columns of a {@link Post}, resolved once per result.
+     */
+    private final class Columns {
+
+        private final ColumnReader<Long> id;
+        private final ColumnReader<String> title;
+        private final ColumnReader<Instant> date;
+        private final ColumnReader<Long> blogId;
+
+        Columns(RowMetadata metadata, String prefix) {
+            id = converter.reader(metadata, prefix + "_id", Long.class);
+            title = converter.reader(metadata, prefix + "_title", String.class);
+            date = converter.reader(metadata, prefix + "_date", Instant.class);
+            blogId = converter.reader(metadata, prefix + "_blog_id", Long.class);
+        }
+    }
 }
@@ -0,0 +1,68 @@
+package com.jhipster.demo.blog.repository.rowmapper;
+
+import com.jhipster.demo.blog.domain.PostSummary;
+import com.jhipster.demo.blog.service.ColumnConverter;
+import com.jhipster.demo.blog.service.ColumnConverter.ColumnReader;
+import com.jhipster.demo.blog.service.ColumnConverter.ColumnResolver;
+import com.jhipster.demo.blog.service.PostContentCodec;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.time.Instant;
+import org.springframework.stereotype.Service;
+
+/**
+ * Converter between {@link Row} to {@link PostSummary}, with proper type conversions.
+ */
+@Service
+public class PostSummaryRowMapper {
+
+    private final ColumnConverter converter;
+    private final ColumnResolver<Columns> columnResolver;
+    private final PostContentCodec contentCodec;
+
+    public PostSummaryRowMapper(ColumnConverter converter, PostContentCodec contentCodec) {
+        this.converter = converter;
+        this.columnResolver = converter.resolver(Columns::new);
+        this.contentCodec = contentCodec;
+    }
+
+    /**
+     * Take a {@link Row}, its metadata and a column prefix, and extract all the fields.
+     * @return the {@link PostSummary} stored in the database.
+     */
+    public PostSummary apply(Row row, RowMetadata metadata, String prefix) {
+        Columns columns = columnResolver.get(metadata, prefix);
+        PostSummary entity = new PostSummary();
+        entity.setId(columns.id.read(row));
+        entity.setTitle(columns.title.read(row));
+        byte[] excerptData = columns.excerptData.read(row);
+        entity.setExcerpt(
+            excerptData != null ? contentCodec.decodePrefix(excerptData, PostSummary.EXCERPT_LENGTH) : columns.excerpt.read(row)
+        );
+        entity.setDate(columns.date.read(row));
+        entity.setBlogId(columns.blogId.read(row));
+        return entity;
+    }
+
+    /**
+     * The readers of the columns of a {@link PostSummary}, resolved once per result.
+     */
+    private final class Columns {
+
+        private final ColumnReader<Long> id;
+        private final ColumnReader<String> title;
+        private final ColumnReader<byte[]> excerptData;
+        private final ColumnReader<String> excerpt;
+        private final ColumnReader<Instant> date;
+        private final ColumnReader<Long> blogId;
+
+        Columns(RowMetadata metadata, String prefix) {
+            id = converter.reader(metadata, prefix + "_id", Long.class);
+            title = converter.reader(metadata, prefix + "_title", String.class);
+            excerptData = converter.reader(metadata, prefix + "_excerpt_data", byte[].class);
+            excerpt = converter.reader(metadata, prefix + "_excerpt", String.class);
+            date = converter.reader(metadata, prefix + "_date", Instant.class);
+            blogId = converter.reader(metadata, prefix + "_blog_id", Long.class);
+        }
+    }
+}
@@ -2,31 +2,62 @@ package com.jhipster.demo.blog.repository.rowmapper;
 
 import com.jhipster.demo.blog.domain.Tag;
 import com.jhipster.demo.blog.service.ColumnConverter;
+import com.jhipster.demo.blog.service.ColumnConverter.ColumnReader;
+import com.jhipster.demo.blog.service.ColumnConverter.ColumnResolver;
 import io.r2dbc.spi.Row;
-import java.util.function.BiFunction;
+import io.r2dbc.spi.RowMetadata;
+import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
 import org.springframework.stereotype.Service;
 
 /**
  * Converter between {@link Row} to {@link Tag}, with proper type conversions.
  */
 @Service
-public class TagRowMapper implements BiFunction<Row, String, Tag> {
+public class TagRowMapper {
 
     private final ColumnConverter converter;
+    private final ColumnResolver<Columns> columnResolver;
 
     public TagRowMapper(ColumnConverter converter) {
         this.converter = converter;
+        this.columnResolver = converter.resolver(Columns::new);
     }
 
     /**
-     * Take a {@link Row} and a column prefix, and extract all the fields.
+     * Take a {@link Row}, its metadata and a column prefix, and extract all the fields.
      * @return the {@link Tag} stored in the database.
      */
-    @Override
-    public Tag apply(Row row, String prefix) {
+    public Tag apply(Row row, RowMetadata metadata, String prefix) {
+        Columns columns = columnResolver.get(metadata, prefix);
         Tag entity = new Tag();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setName(converter.fromRow(row, prefix + "_name", String.class));
+        entity.setId(columns.id.read(row));
+        entity.setName(columns.name.read(row));
         return entity;
     }
+
+    /**
+     * Take a {@link Tag}, and extract the values of all its columns, for an insert.
+     * @return the column values of the {@link Tag}.
+     */
+    public OutboundRow toRow(Tag entity) {
+        OutboundRow row = new OutboundRow();
+        row.put(SqlIdentifier.unquoted("id"), converter.toColumn(entity.getId(), Long.class));
+        row.put(SqlIdentifier.unquoted("name"), converter.toColumn(entity.getName(), String.class));
+        return row;
+    }
+
+    /**
+     * The readers of the columns of a {@link Tag}, resolved once per result.
+     */
+    private final class Columns {
+
+        private final ColumnReader<Long> id;
+        private final ColumnReader<String> name;
+
+        Columns(RowMetadata metadata, String prefix) {
+            id = converter.reader(metadata, prefix + "_id", Long.class);
+            name = converter.reader(metadata, prefix + "_name", String.class);
+        }
+    }
 }
@@ -2,38 +2,110 @@ package com.jhipster.demo.blog.repository.rowmapper;
 
 import com.jhipster.demo.blog.domain.User;
 import com.jhipster.demo.blog.service.ColumnConverter;
+import com.jhipster.demo.blog.service.ColumnConverter.ColumnReader;
+import com.jhipster.demo.blog.service.ColumnConverter.ColumnResolver;
 import io.r2dbc.spi.Row;
-import java.util.function.BiFunction;
+import io.r2dbc.spi.RowMetadata;
+import java.time.Instant;
+import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
 import org.springframework.stereotype.Service;
 
 /**
  * Converter between {@link Row} to {@link User}, with proper type conversions.
  */
 @Service
-public class UserRowMapper implements BiFunction<Row, String, User> {
+public class UserRowMapper {
 
     private final ColumnConverter converter;
+    private final ColumnResolver<Columns> columnResolver;
 
     public UserRowMapper(ColumnConverter converter) {
         this.converter = converter;
+        this.columnResolver = converter.resolver(Columns::new);
     }
 
     /**
-     * Take a {@link Row} and a column prefix, and extract all the fields.
+     * Take a {@link Row}, its metadata and a column prefix, and extract all the fields.
+     * <p>
+     * An empty prefix reads the columns by their names in the table, as selected by {@code u.*}.
      *
      * @return the {@link User} stored in the database.
      */
-    @Override
-    public User apply(Row row, String prefix) {
+    public User apply(Row row, RowMetadata metadata, String prefix) {
+        Columns columns = columnResolver.get(metadata, prefix);
         User entity = new User();
-        entity.setId(row.get(prefix + "_id", String.class));
-        entity.setLogin(converter.fromRow(row, prefix + "_login", String.class));
-        entity.setFirstName(converter.fromRow(row, prefix + "_first_name", String.class));
-        entity.setLastName(converter.fromRow(row, prefix + "_last_name", String.class));
-        entity.setEmail(converter.fromRow(row, prefix + "_email", String.class));
-        entity.setActivated(Boolean.TRUE.equals(converter.fromRow(row, prefix + "_activated", Boolean.class)));
-        entity.setLangKey(converter.fromRow(row, prefix + "_lang_key", String.class));
-        entity.setImageUrl(converter.fromRow(row, prefix + "_image_url", String.class));
+        entity.setId(columns.id.read(row));
+        entity.setLogin(columns.login.read(row));
+        entity.setFirstName(columns.firstName.read(row));
+        entity.setLastName(columns.lastName.read(row));
+        entity.setEmail(columns.email.read(row));
+        entity.setActivated(Boolean.TRUE.equals(columns.activated.read(row)));
+        entity.setLangKey(columns.langKey.read(row));
+        entity.setImageUrl(columns.imageUrl.read(row));
+        entity.setCreatedBy(columns.createdBy.read(row));
+        entity.setCreatedDate(columns.createdDate.read(row));
+        entity.setLastModifiedBy(columns.lastModifiedBy.read(row));
+        entity.setLastModifiedDate(columns.lastModifiedDate.read(row));
         return entity;
     }
+
+    /**
+     * Take a {@link User}, and extract the values of all its columns, for an insert.
+     * @return the column values of the {@link User}.
+     */
+    public OutboundRow toRow(User entity) {
+        OutboundRow row = new OutboundRow();
+        row.put(SqlIdentifier.unquoted("id"), converter.toColumn(entity.getId(), String.class));
+        row.put(SqlIdentifier.unquoted("login"), converter.toColumn(entity.getLogin(), String.class));
+        row.put(SqlIdentifier.unquoted("first_name"), converter.toColumn(entity.getFirstName(), String.class));
+        row.put(SqlIdentifier.unquoted("last_name"), converter.toColumn(entity.getLastName(), String.class));
+        row.put(SqlIdentifier.unquoted("email"), converter.toColumn(entity.getEmail(), String.class));
+        row.put(SqlIdentifier.unquoted("activated"), converter.toColumn(entity.isActivated(), Boolean.class));
+        row.put(SqlIdentifier.unquoted("lang_key"), converter.toColumn(entity.getLangKey(), String.class));
+        row.put(SqlIdentifier.unquoted("image_url"), converter.toColumn(entity.getImageUrl(), String.class));
+        row.put(SqlIdentifier.unquoted("created_by"), converter.toColumn(entity.getCreatedBy(), String.class));
+        row.put(SqlIdentifier.unquoted("created_date"), converter.toColumn(entity.getCreatedDate(), Instant.class));
+        row.put(SqlIdentifier.unquoted("last_modified_by"), converter.toColumn(entity.getLastModifiedBy(), String.class));
+        row.put(SqlIdentifier.unquoted("last_modified_date"), converter.toColumn(entity.getLastModifiedDate(), Instant.class));
+        return row;
+    }
+
+    private static String column(String prefix, String name) {
+        return prefix.isEmpty() ? name : prefix + "_" + name;
+    }
+
+    /**
+     * The readers of the columns of a {@link User}, resolved once per result.
+     */
+    private final class Columns {
+
+        private final ColumnReader<String> login;
+        private final ColumnReader<String> firstName;
+        private final ColumnReader<String> lastName;
+        private final ColumnReader<String> email;
+        private final ColumnReader<Boolean> activated;
+        private final ColumnReader<String> langKey;
+        private final ColumnReader<String> imageUrl;
+        private final ColumnReader<String> createdBy;
+        private final ColumnReader<Instant> createdDate;
+        private final ColumnReader<String> lastModifiedBy;
+        private final ColumnReader<Instant> lastModifiedDate;
+        private final ColumnReader<String> id;
+
+        Columns(RowMetadata metadata, String prefix) {
+            login = converter.reader(metadata, column(prefix, "login"), String.class);
+            firstName = converter.reader(metadata, column(prefix, "first_name"), String.class);
+            lastName = converter.reader(metadata, column(prefix, "last_name"), String.class);
+            email = converter.reader(metadata, column(prefix, "email"), String.class);
+            activated = converter.reader(metadata, column(prefix, "activated"), Boolean.class);
+            langKey = converter.reader(metadata, column(prefix, "lang_key"), String.class);
+            imageUrl = converter.reader(metadata, column(prefix, "image_url"), String.class);
+            createdBy = converter.reader(metadata, column(prefix, "created_by"), String.class);
+            createdDate = converter.reader(metadata, column(prefix, "created_date"), Instant.class);
+            lastModifiedBy = converter.reader(metadata, column(prefix, "last_modified_by"), String.class);
+            lastModifiedDate = converter.reader(metadata, column(prefix, "last_modified_date"), Instant.class);
+            id = converter.reader(metadata, column(prefix, "id"), String.class);
+        }
+    }
 }
@@ -0,0 +1,95 @@
+package com.jhipster.demo.blog.security.oauth2;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jhipster.demo.blog.config.ApplicationProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Collection;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+
+/**
+ * Decodes the JWTs with a delegate, and keeps the verified ones with their authorities, so that an API client sending the
+ * same token on every request doesn't pay for parsing it and verifying its signature again.
+ * <p>
+ * The tokens are cached by their SHA-256 hash, never by their value. A token stays cached until its {@code exp} claim, and
+ * at most for the configured time to live. A token which fails the verification is never cached.
+ */
+public class CachingJwtDecoder implements ReactiveJwtDecoder {
+
+    private static final String CACHE_NAME = "jwt";
+
+    private final ReactiveJwtDecoder delegate;
+
+    private final Converter<Jwt, Collection<GrantedAuthority>> authoritiesConverter;
+
+    private final Cache<String, VerifiedJwt> verified;
+
+    public CachingJwtDecoder(
+        ReactiveJwtDecoder delegate,
+        Converter<Jwt, Collection<GrantedAuthority>> authoritiesConverter,
+        ApplicationProperties.JwtCache properties,
+        MeterRegistry meterRegistry
+    ) {
+        this.delegate = delegate;
+        this.authoritiesConverter = authoritiesConverter;
+        this.verified =
+            Caffeine
+                .newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(TokenCaches.<String, VerifiedJwt>expiringAt(cached -> cached.jwt.getExpiresAt(), properties.getTimeToLive()))
+                .recordStats()
+                .build();
+
+        Tags tags = Tags.of("kind", CACHE_NAME);
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, CACHE_NAME, tags);
+        Gauge
+            .builder("cache.hit.ratio", verified, cache -> cache.stats().hitRate())
+            .description("Share of the tokens which were already verified")
+            .tags(tags.and("cache", CACHE_NAME))
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Jwt> decode(String token) throws JwtException {
+        String key = TokenCaches.hash(token);
+        VerifiedJwt cached = verified.getIfPresent(key);
+        if (cached != null) {
+            return Mono.just(cached.jwt);
+        }
+        return delegate.decode(token).doOnNext(jwt -> verified.put(key, new VerifiedJwt(jwt, authoritiesConverter.convert(jwt))));
+    }
+
+    /**
+     * Gets the authorities of a token, computed once when it was verified.
+     *
+     * @param jwt the decoded token.
+     * @return the authorities granted by the token.
+     */
+    public Collection<GrantedAuthority> getAuthorities(Jwt jwt) {
+        // not counted as a lookup, the token was just decoded
+        VerifiedJwt cached = verified.asMap().get(TokenCaches.hash(jwt.getTokenValue()));
+        if (cached != null && cached.jwt == jwt) {
+            return cached.authorities;
+        }
+        return authoritiesConverter.convert(jwt);
+    }
+
+    private static final class VerifiedJwt {
+
+        private final Jwt jwt;
+        private final Collection<GrantedAuthority> authorities;
+
+        VerifiedJwt(Jwt jwt, Collection<GrantedAuthority> authorities) {
+            this.jwt = jwt;
+            this.authorities = authorities;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.jhipster.demo.blog.security.oauth2;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jhipster.demo.blog.config.ApplicationProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Instant;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
+import org.springframework.security.oauth2.client.userinfo.ReactiveOAuth2UserService;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import reactor.core.publisher.Mono;
+
+/**
+ * Loads the users from the userinfo endpoint with a delegate, and keeps the responses per access token, so that a login
+ * doesn't wait for the identity provider again while its access token is valid.
+ * <p>
+ * The responses are cached by the SHA-256 hash of their access token, never by its value. A response stays cached until its
+ * access token expires, and at most for the configured time to live. A failed request is never cached.
+ */
+public class CachingOAuth2UserService implements ReactiveOAuth2UserService<OAuth2UserRequest, OAuth2User> {
+
+    private static final String CACHE_NAME = "userinfo";
+
+    private final ReactiveOAuth2UserService<OAuth2UserRequest, OAuth2User> delegate;
+
+    private final Cache<String, UserInfo> userInfos;
+
+    public CachingOAuth2UserService(
+        ReactiveOAuth2UserService<OAuth2UserRequest, OAuth2User> delegate,
+        ApplicationProperties.OidcCache properties,
+        MeterRegistry meterRegistry
+    ) {
+        this.delegate = delegate;
+        this.userInfos =
+            Caffeine
+                .newBuilder()
+                .maximumSize(properties.getUserInfoMaximumSize())
+                .expireAfter(TokenCaches.<String, UserInfo>expiringAt(cached -> cached.expiresAt, properties.getUserInfoTimeToLive()))
+                .recordStats()
+                .build();
+
+        Tags tags = Tags.of("kind", CACHE_NAME);
+        CaffeineCacheMetrics.monitor(meterRegistry, userInfos, CACHE_NAME, tags);
+        Gauge
+            .builder("cache.hit.ratio", userInfos, cache -> cache.stats().hitRate())
+            .description("Share of the userinfo responses which were already loaded")
+            .tags(tags.and("cache", CACHE_NAME))
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<OAuth2User> loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
+        OAuth2AccessToken accessToken = userRequest.getAccessToken();
+        String key = userRequest.getClientRegistration().getRegistrationId() + ":" + TokenCaches.hash(accessToken.getTokenValue());
+        UserInfo cached = userInfos.getIfPresent(key);
+        if (cached != null) {
+            return Mono.just(cached.user);
+        }
+        return delegate.loadUser(userRequest).doOnNext(user -> userInfos.put(key, new UserInfo(user, accessToken.getExpiresAt())));
+    }
+
+    private static final class UserInfo {
+
+        private final OAuth2User user;
+        private final Instant expiresAt;
+
+        UserInfo(OAuth2User user, Instant expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
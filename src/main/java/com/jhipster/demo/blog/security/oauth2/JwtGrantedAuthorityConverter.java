@@ -2,20 +2,58 @@ package com.jhipster.demo.blog.security.oauth2;
 
 import com.jhipster.demo.blog.security.SecurityUtils;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Component;
 
+/**
+ * Maps the roles of a JWT to authorities.
+ * <p>
+ * The tokens granting the same roles share the same authorities, so a cached token doesn't hold its own copies.
+ */
 @Component
 public class JwtGrantedAuthorityConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
 
+    // the roles are those of the identity provider, there are few of them
+    private static final int MAX_INTERNED = 1000;
+
+    private final Map<String, GrantedAuthority> authorities = new ConcurrentHashMap<>();
+
+    private final Map<List<String>, List<GrantedAuthority>> authoritySets = new ConcurrentHashMap<>();
+
     public JwtGrantedAuthorityConverter() {
         // Bean extracting authority.
     }
 
     @Override
     public Collection<GrantedAuthority> convert(Jwt jwt) {
-        return SecurityUtils.extractAuthorityFromClaims(jwt.getClaims());
+        List<GrantedAuthority> extracted = SecurityUtils.extractAuthorityFromClaims(jwt.getClaims());
+        List<String> names = extracted.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toList());
+        List<GrantedAuthority> interned = authoritySets.get(names);
+        if (interned != null) {
+            return interned;
+        }
+        interned = Collections.unmodifiableList(extracted.stream().map(this::intern).collect(Collectors.toList()));
+        if (authoritySets.size() < MAX_INTERNED) {
+            authoritySets.putIfAbsent(names, interned);
+        }
+        return interned;
+    }
+
+    private GrantedAuthority intern(GrantedAuthority authority) {
+        GrantedAuthority interned = authorities.get(authority.getAuthority());
+        if (interned != null) {
+            return interned;
+        }
+        if (authorities.size() < MAX_INTERNED) {
+            interned = authorities.putIfAbsent(authority.getAuthority(), authority);
+        }
+        return interned != null ? interned : authority;
     }
 }
@@ -0,0 +1,255 @@
+package com.jhipster.demo.blog.security.oauth2;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.jhipster.demo.blog.config.ApplicationProperties;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jwt.SignedJWT;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.lang.Nullable;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Keeps the discovery document and the JWK set of the OpenID Connect provider, so that verifying a token never waits for it.
+ * <p>
+ * The metadata is persisted to a local file, and restored from it when the application starts, so that a restart doesn't
+ * need the provider. It's refreshed in the background, and when a token is signed with a key it doesn't know, e.g. after the
+ * provider rotated its keys, at most once per minimum refresh interval so that forged tokens can't hammer the provider. The
+ * concurrent refreshes share a single run, and a failed refresh keeps the metadata it had.
+ */
+public class OidcMetadataCache {
+
+    private static final String DISCOVERY_PATH = "/.well-known/openid-configuration";
+
+    private static final ParameterizedTypeReference<Map<String, Object>> DISCOVERY_TYPE = new ParameterizedTypeReference<>() {};
+
+    private static final TypeReference<Map<String, Object>> PERSISTED_DISCOVERY_TYPE = new TypeReference<>() {};
+
+    private final Logger log = LoggerFactory.getLogger(OidcMetadataCache.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String issuerUri;
+
+    private final ApplicationProperties.OidcCache properties;
+
+    private final WebClient webClient;
+
+    private final Path file;
+
+    private final Map<String, Mono<Metadata>> refreshes = new ConcurrentHashMap<>();
+
+    @Nullable
+    private volatile Metadata metadata;
+
+    private volatile Instant lastRefresh = Instant.EPOCH;
+
+    @Nullable
+    private Disposable backgroundRefresh;
+
+    public OidcMetadataCache(String issuerUri, ApplicationProperties.OidcCache properties, WebClient webClient) {
+        this.issuerUri = issuerUri;
+        this.properties = properties;
+        this.webClient = webClient;
+        this.file = Paths.get(properties.getFile());
+        this.metadata = read();
+    }
+
+    /**
+     * Starts refreshing the metadata in the background, right away if there's none or it's older than the refresh interval.
+     */
+    public void start() {
+        if (!properties.isRefreshInBackground()) {
+            return;
+        }
+        Metadata restored = metadata;
+        Duration delay = Duration.ZERO;
+        if (restored != null) {
+            Duration untilStale = Duration.between(Instant.now(), restored.fetchedAt.plus(properties.getRefreshInterval()));
+            delay = untilStale.isNegative() ? Duration.ZERO : untilStale;
+        }
+        backgroundRefresh =
+            Flux
+                .interval(delay, properties.getRefreshInterval())
+                .onBackpressureDrop()
+                .concatMap(
+                    tick ->
+                        refreshed()
+                            .onErrorResume(
+                                e -> {
+                                    log.warn("Refreshing the metadata of {} failed, keeping the previous one", issuerUri, e);
+                                    return Mono.empty();
+                                }
+                            )
+                )
+                .subscribe();
+    }
+
+    public void stop() {
+        if (backgroundRefresh != null) {
+            backgroundRefresh.dispose();
+        }
+    }
+
+    /**
+     * Fetches the discovery document and the JWK set of the provider again.
+     *
+     * @return completes once the metadata is refreshed.
+     */
+    public Mono<Void> refresh() {
+        return refreshed().then();
+    }
+
+    /**
+     * Selects the keys verifying a token, among the cached ones, and among the refreshed ones if none matches.
+     *
+     * @return the source of the keys for a {@link org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder}.
+     */
+    public Function<SignedJWT, Flux<JWK>> jwkSource() {
+        return jwt -> {
+            JWKSelector selector = new JWKSelector(JWKMatcher.forJWSHeader(jwt.getHeader()));
+            return current()
+                .flatMapMany(
+                    current -> {
+                        List<JWK> keys = selector.select(current.jwks);
+                        if (!keys.isEmpty() || !mayRefreshForUnknownKey()) {
+                            return Flux.fromIterable(keys);
+                        }
+                        log.debug("No key of {} matches the key id '{}', refreshing them", issuerUri, jwt.getHeader().getKeyID());
+                        return refreshed().flatMapIterable(fresh -> selector.select(fresh.jwks));
+                    }
+                );
+        };
+    }
+
+    private boolean mayRefreshForUnknownKey() {
+        // a refresh in flight is joined, it may bring the key
+        return refreshes.containsKey(issuerUri) || lastRefresh.plus(properties.getMinimumRefreshInterval()).isBefore(Instant.now());
+    }
+
+    private Mono<Metadata> current() {
+        Metadata current = metadata;
+        return current != null ? Mono.just(current) : refreshed();
+    }
+
+    private Mono<Metadata> refreshed() {
+        return refreshes.computeIfAbsent(issuerUri, k -> fetch().doFinally(signal -> refreshes.remove(k)).cache());
+    }
+
+    private Mono<Metadata> fetch() {
+        return Mono
+            .defer(
+                () -> {
+                    lastRefresh = Instant.now();
+                    return webClient.get().uri(issuerUri + DISCOVERY_PATH).retrieve().bodyToMono(DISCOVERY_TYPE);
+                }
+            )
+            .flatMap(
+                discovery -> {
+                    if (!issuerUri.equals(discovery.get("issuer"))) {
+                        return Mono.error(new IllegalStateException("The discovery document of " + issuerUri + " has another issuer"));
+                    }
+                    String jwksUri = String.valueOf(discovery.get("jwks_uri"));
+                    return webClient
+                        .get()
+                        .uri(jwksUri)
+                        .retrieve()
+                        .bodyToMono(String.class)
+                        .flatMap(jwks -> Mono.fromCallable(() -> new Metadata(discovery, JWKSet.parse(jwks), Instant.now())));
+                }
+            )
+            .timeout(properties.getTimeout())
+            .doOnNext(
+                fetched -> {
+                    log.debug("Fetched the metadata of {}, with {} keys", issuerUri, fetched.jwks.getKeys().size());
+                    metadata = fetched;
+                }
+            )
+            .flatMap(fetched -> Mono.fromRunnable(() -> write(fetched)).subscribeOn(Schedulers.boundedElastic()).thenReturn(fetched));
+    }
+
+    @Nullable
+    private Metadata read() {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            JsonNode persisted = objectMapper.readTree(file.toFile());
+            if (!issuerUri.equals(persisted.path("issuer").asText())) {
+                log.debug("Ignoring the metadata persisted in {}, it's from another issuer", file);
+                return null;
+            }
+            Map<String, Object> discovery = objectMapper.convertValue(persisted.get("discovery"), PERSISTED_DISCOVERY_TYPE);
+            JWKSet jwks = JWKSet.parse(persisted.get("jwks").toString());
+            Metadata restored = new Metadata(discovery, jwks, Instant.parse(persisted.get("fetchedAt").asText()));
+            log.debug("Restored the metadata of {} fetched at {}", issuerUri, restored.fetchedAt);
+            return restored;
+        } catch (IOException | ParseException | RuntimeException e) {
+            log.warn("Could not restore the metadata persisted in {}, it will be fetched", file, e);
+            return null;
+        }
+    }
+
+    private void write(Metadata fetched) {
+        Path tmp = null;
+        try {
+            ObjectNode persisted = objectMapper.createObjectNode();
+            persisted.put("issuer", issuerUri);
+            persisted.put("fetchedAt", fetched.fetchedAt.toString());
+            persisted.set("discovery", objectMapper.valueToTree(fetched.discovery));
+            // only the public keys
+            persisted.set("jwks", objectMapper.readTree(fetched.jwks.toString()));
+
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            tmp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            objectMapper.writeValue(tmp.toFile(), persisted);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not persist the metadata of {} to {}", issuerUri, file, e);
+            try {
+                if (tmp != null) {
+                    Files.deleteIfExists(tmp);
+                }
+            } catch (IOException ignored) {
+                // a leftover temporary file is harmless
+            }
+        }
+    }
+
+    private static final class Metadata {
+
+        private final Map<String, Object> discovery;
+        private final JWKSet jwks;
+        private final Instant fetchedAt;
+
+        Metadata(Map<String, Object> discovery, JWKSet jwks, Instant fetchedAt) {
+            this.discovery = discovery;
+            this.jwks = jwks;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.jhipster.demo.blog.security.oauth2;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * What the caches of values derived from a token share.
+ */
+final class TokenCaches {
+
+    private TokenCaches() {}
+
+    /**
+     * @return the SHA-256 hash of a token, so that the caches never hold the value of a token.
+     */
+    static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Expires the cached values when their token expires, and at most after the given time to live.
+     *
+     * @param expiresAt the expiry of the token of a value, {@code null} if it doesn't expire.
+     * @param timeToLive how long a value stays cached at most.
+     */
+    static <K, V> Expiry<K, V> expiringAt(Function<V, Instant> expiresAt, Duration timeToLive) {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(K key, V value, long currentTime) {
+                Instant expiry = expiresAt.apply(value);
+                if (expiry == null) {
+                    return timeToLive.toNanos();
+                }
+                Duration untilExpired = Duration.between(Instant.now(), expiry);
+                return Math.max(0, Math.min(untilExpired.toNanos(), timeToLive.toNanos()));
+            }
+
+            @Override
+            public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+                return expireAfterCreate(key, value, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+}
@@ -0,0 +1,119 @@
+package com.jhipster.demo.blog.service;
+
+import com.jhipster.demo.blog.domain.Authority;
+import com.jhipster.demo.blog.repository.AuthorityRepository;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps the names of all the authorities in memory, as they are read on every synchronization of a user and rarely change.
+ * <p>
+ * The names are loaded when the application starts, or on first use if that failed. A saved authority is added once its
+ * transaction commits, and published on the {@link CacheInvalidationBus}, so that the other instances of the application add
+ * it too.
+ */
+@Service
+public class AuthorityRegistry {
+
+    static final String CACHE_NAME = "authority";
+
+    private final Logger log = LoggerFactory.getLogger(AuthorityRegistry.class);
+
+    private final AuthorityRepository authorityRepository;
+
+    private final CacheInvalidationBus invalidationBus;
+
+    @Nullable
+    private volatile Set<String> authorities;
+
+    public AuthorityRegistry(AuthorityRepository authorityRepository, CacheInvalidationBus invalidationBus) {
+        this.authorityRepository = authorityRepository;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(CACHE_NAME, this::added);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAuthorities() {
+        load()
+            .subscribe(
+                loaded -> log.debug("Loaded {} authorities", loaded.size()),
+                e -> log.warn("Loading the authorities failed, they will be loaded on first use", e)
+            );
+    }
+
+    /**
+     * Gets the names of all the authorities, in alphabetical order.
+     *
+     * @return the names of the authorities.
+     */
+    public Flux<String> getAuthorities() {
+        return authorities().flatMapIterable(names -> names);
+    }
+
+    /**
+     * Saves the authorities which don't exist yet.
+     *
+     * @param names the names of the authorities.
+     * @return completes once the missing authorities are saved.
+     */
+    public Mono<Void> saveMissing(Collection<String> names) {
+        return authorities()
+            .flatMapMany(known -> Flux.fromIterable(names).filter(name -> !known.contains(name)).distinct())
+            .map(
+                name -> {
+                    Authority authority = new Authority();
+                    authority.setName(name);
+                    return authority;
+                }
+            )
+            .doOnNext(authority -> log.debug("Saving authority '{}' in local database", authority))
+            .concatMap(authorityRepository::save)
+            .map(Authority::getName)
+            .collectList()
+            .filter(saved -> !saved.isEmpty())
+            .flatMap(
+                saved ->
+                    CacheTransactions.afterCommit(
+                        () ->
+                            saved.forEach(
+                                name -> {
+                                    added(name);
+                                    invalidationBus.publish(CACHE_NAME, name);
+                                }
+                            )
+                    )
+            );
+    }
+
+    private Mono<Set<String>> authorities() {
+        Set<String> loaded = authorities;
+        return loaded != null ? Mono.just(loaded) : load();
+    }
+
+    private Mono<Set<String>> load() {
+        return authorityRepository
+            .findAll()
+            .map(Authority::getName)
+            .<Set<String>>collect(ConcurrentSkipListSet::new, Set::add)
+            .doOnNext(loaded -> authorities = loaded);
+    }
+
+    private void added(@Nullable Object name) {
+        Set<String> loaded = authorities;
+        if (name == null) {
+            // loaded again on next use
+            authorities = null;
+        } else if (loaded != null) {
+            loaded.add((String) name);
+        }
+    }
+}
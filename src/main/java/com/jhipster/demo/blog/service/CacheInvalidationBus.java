@@ -0,0 +1,381 @@
+package com.jhipster.demo.blog.service;
+
+import com.jhipster.demo.blog.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+/**
+ * Tells the other instances of the application which cached entries to drop, over UDP.
+ * <p>
+ * The invalidations published during the batch window are coalesced, a key being sent once however many times it was
+ * invalidated, and the keys of a cache being left out once the whole cache is invalidated. They are then sent together,
+ * in as few datagrams as possible, either to the multicast group, or to each of the configured peers. The invalidations
+ * received from the other instances are handed to the listeners of their cache.
+ * <p>
+ * Every datagram ends with an HMAC-SHA256 of its content, computed with the key shared by the instances, and the datagrams
+ * without a valid one are dropped, so that nobody else reaching the port can evict the caches.
+ * <p>
+ * UDP doesn't guarantee the delivery, so the caches still need a time to live bounding how long a lost invalidation
+ * leaves an entry stale.
+ */
+@Service
+public class CacheInvalidationBus {
+
+    /**
+     * Receives the invalidations of a cache.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param key the invalidated key, or {@code null} if the whole cache is invalidated.
+         */
+        void invalidate(@Nullable Object key);
+    }
+
+    // stays below the usual MTU, so the datagrams are not fragmented
+    static final int MAX_DATAGRAM_SIZE = 1400;
+
+    private static final short MAGIC = (short) 0xCA1E;
+    private static final byte VERSION = 2;
+    private static final int HEADER_LENGTH = 2 + 1 + 16 + 2;
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int MAC_LENGTH = 32;
+
+    private static final byte KEY_ALL = 0;
+    private static final byte KEY_LONG = 1;
+    private static final byte KEY_STRING = 2;
+
+    private final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private final ApplicationProperties.CacheInvalidation properties;
+    private final UUID nodeId = UUID.randomUUID();
+    private final SecretKeySpec key;
+    private final Map<String, List<Listener>> listeners = new ConcurrentHashMap<>();
+
+    // per cache, the keys to send, or null if the whole cache is invalidated
+    private final Map<String, Set<Object>> pending = new LinkedHashMap<>();
+
+    private final Counter sentDatagrams;
+    private final Counter receivedDatagrams;
+    private final Counter rejectedDatagrams;
+    private final Counter sentKeys;
+    private final Counter receivedKeys;
+
+    private DatagramChannel channel;
+    private List<SocketAddress> destinations;
+    private ScheduledExecutorService sender;
+    private Thread receiver;
+
+    public CacheInvalidationBus(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getCacheInvalidation();
+        this.key =
+            StringUtils.hasText(properties.getKey())
+                ? new SecretKeySpec(properties.getKey().getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM)
+                : null;
+        this.sentDatagrams = counter("cache.invalidation.datagrams", "sent", meterRegistry);
+        this.receivedDatagrams = counter("cache.invalidation.datagrams", "received", meterRegistry);
+        this.rejectedDatagrams = counter("cache.invalidation.datagrams", "rejected", meterRegistry);
+        this.sentKeys = counter("cache.invalidation.keys", "sent", meterRegistry);
+        this.receivedKeys = counter("cache.invalidation.keys", "received", meterRegistry);
+    }
+
+    private static Counter counter(String name, String direction, MeterRegistry meterRegistry) {
+        return Counter
+            .builder(name)
+            .description("Cache invalidations exchanged with the other instances")
+            .tag("direction", direction)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Opens the channel, when enabled.
+     *
+     * @throws IOException if the channel could not be opened.
+     * @throws IllegalStateException if no key is configured.
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (key == null) {
+            throw new IllegalStateException("application.cache-invalidation.key is required to exchange the cache invalidations");
+        }
+        destinations = new ArrayList<>();
+        channel = DatagramChannel.open(StandardProtocolFamily.INET);
+        channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        channel.bind(new InetSocketAddress(properties.getPort()));
+        if (properties.getPeers().isEmpty()) {
+            InetAddress group = InetAddress.getByName(properties.getGroup());
+            NetworkInterface networkInterface = StringUtils.hasText(properties.getNetworkInterface())
+                ? NetworkInterface.getByName(properties.getNetworkInterface())
+                : NetworkInterface.getByInetAddress(InetAddress.getLocalHost());
+            if (networkInterface == null) {
+                throw new IOException("No network interface for multicast: " + properties.getNetworkInterface());
+            }
+            channel.setOption(StandardSocketOptions.IP_MULTICAST_IF, networkInterface);
+            channel.setOption(StandardSocketOptions.IP_MULTICAST_TTL, properties.getTimeToLive());
+            // other instances may run on the same host
+            channel.setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true);
+            channel.join(group, networkInterface);
+            destinations.add(new InetSocketAddress(group, properties.getPort()));
+        } else {
+            for (String peer : properties.getPeers()) {
+                int separator = peer.lastIndexOf(':');
+                destinations.add(new InetSocketAddress(peer.substring(0, separator), Integer.parseInt(peer.substring(separator + 1))));
+            }
+        }
+
+        receiver = new Thread(this::receive, "cache-invalidation-receiver");
+        receiver.setDaemon(true);
+        receiver.start();
+        sender =
+            Executors.newSingleThreadScheduledExecutor(
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-invalidation-sender");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            );
+        long window = properties.getBatchWindow().toMillis();
+        sender.scheduleWithFixedDelay(this::flush, window, window, TimeUnit.MILLISECONDS);
+        log.info("Cache invalidations are exchanged with {} on port {}", destinations, properties.getPort());
+    }
+
+    /**
+     * Sends the pending invalidations, and closes the channel.
+     */
+    @PreDestroy
+    public void stop() {
+        if (channel == null) {
+            return;
+        }
+        sender.shutdown();
+        try {
+            sender.awaitTermination(1, TimeUnit.SECONDS);
+            flush();
+            channel.close();
+            receiver.join(1000);
+        } catch (IOException e) {
+            log.warn("Could not close the cache invalidation channel: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Registers the listener receiving the invalidations the other instances publish for a cache.
+     *
+     * @param cache the name of the cache.
+     * @param listener drops the invalidated entries.
+     */
+    public void subscribe(String cache, Listener listener) {
+        listeners.computeIfAbsent(cache, name -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Sends an invalidation to the other instances, with the next batch.
+     *
+     * @param cache the name of the cache.
+     * @param key the invalidated key, a {@link Long} or a {@link String}, or {@code null} to invalidate the whole cache.
+     */
+    public void publish(String cache, @Nullable Object key) {
+        if (channel == null) {
+            return;
+        }
+        if (key != null && !(key instanceof Long) && !(key instanceof String)) {
+            throw new IllegalArgumentException("Unsupported cache key type " + key.getClass().getName());
+        }
+        synchronized (pending) {
+            if (key == null) {
+                pending.put(cache, null);
+            } else if (!pending.containsKey(cache)) {
+                pending.put(cache, new LinkedHashSet<>(Collections.singleton(key)));
+            } else if (pending.get(cache) != null) {
+                pending.get(cache).add(key);
+            }
+        }
+    }
+
+    void flush() {
+        Map<String, Set<Object>> batch;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new LinkedHashMap<>(pending);
+            pending.clear();
+        }
+        try {
+            for (ByteBuffer datagram : encode(batch)) {
+                for (SocketAddress destination : destinations) {
+                    channel.send(datagram.duplicate(), destination);
+                }
+                sentDatagrams.increment();
+            }
+            batch.values().forEach(keys -> sentKeys.increment(keys != null ? keys.size() : 1));
+        } catch (IOException e) {
+            log.warn("Could not send {} cache invalidations: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    List<ByteBuffer> encode(Map<String, Set<Object>> batch) {
+        List<ByteBuffer> datagrams = new ArrayList<>();
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        int count = 0;
+        for (Map.Entry<String, Set<Object>> cache : batch.entrySet()) {
+            Iterable<Object> keys = cache.getValue() != null ? cache.getValue() : Collections.singleton(null);
+            for (Object key : keys) {
+                byte[] entry = encodeEntry(cache.getKey(), key);
+                if (HEADER_LENGTH + entries.size() + entry.length + MAC_LENGTH > MAX_DATAGRAM_SIZE && count > 0) {
+                    datagrams.add(datagram(entries.toByteArray(), count));
+                    entries.reset();
+                    count = 0;
+                }
+                entries.write(entry, 0, entry.length);
+                count++;
+            }
+        }
+        if (count > 0) {
+            datagrams.add(datagram(entries.toByteArray(), count));
+        }
+        return datagrams;
+    }
+
+    private static byte[] encodeEntry(String cache, @Nullable Object key) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(cache);
+            if (key == null) {
+                out.writeByte(KEY_ALL);
+            } else if (key instanceof Long) {
+                out.writeByte(KEY_LONG);
+                out.writeLong((Long) key);
+            } else {
+                out.writeByte(KEY_STRING);
+                out.writeUTF((String) key);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private ByteBuffer datagram(byte[] entries, int count) {
+        ByteBuffer datagram = ByteBuffer
+            .allocate(HEADER_LENGTH + entries.length + MAC_LENGTH)
+            .putShort(MAGIC)
+            .put(VERSION)
+            .putLong(nodeId.getMostSignificantBits())
+            .putLong(nodeId.getLeastSignificantBits())
+            .putShort((short) count)
+            .put(entries);
+        Mac mac = mac();
+        mac.update(datagram.array(), 0, datagram.position());
+        return datagram.put(mac.doFinal()).flip();
+    }
+
+    private Mac mac() {
+        try {
+            // a Mac is not thread-safe, and the sender and the receiver run on their own thread
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not create the " + MAC_ALGORITHM + " of the cache invalidations", e);
+        }
+    }
+
+    private void receive() {
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_DATAGRAM_SIZE);
+        while (channel.isOpen()) {
+            try {
+                buffer.clear();
+                channel.receive(buffer);
+                buffer.flip();
+                apply(buffer);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not apply a cache invalidation: {}", e.getMessage());
+            }
+        }
+    }
+
+    void apply(ByteBuffer datagram) throws IOException {
+        int start = datagram.position();
+        if (datagram.remaining() < HEADER_LENGTH + MAC_LENGTH || datagram.getShort(start) != MAGIC || datagram.get(start + 2) != VERSION) {
+            log.debug("Ignoring a datagram which is not a cache invalidation");
+            return;
+        }
+        int contentLength = datagram.remaining() - MAC_LENGTH;
+        Mac mac = mac();
+        mac.update(datagram.array(), datagram.arrayOffset() + start, contentLength);
+        int macOffset = datagram.arrayOffset() + start + contentLength;
+        if (!MessageDigest.isEqual(mac.doFinal(), Arrays.copyOfRange(datagram.array(), macOffset, macOffset + MAC_LENGTH))) {
+            rejectedDatagrams.increment();
+            log.debug("Ignoring a cache invalidation which is not signed with the shared key");
+            return;
+        }
+        datagram.limit(start + contentLength).position(start + 3);
+        UUID sender = new UUID(datagram.getLong(), datagram.getLong());
+        if (sender.equals(nodeId)) {
+            // multicast loops back the datagrams of this instance
+            return;
+        }
+        int count = datagram.getShort() & 0xFFFF;
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(datagram.array(), datagram.position(), datagram.remaining()));
+        for (int i = 0; i < count; i++) {
+            String cache = in.readUTF();
+            byte keyType = in.readByte();
+            Object key = keyType == KEY_LONG ? (Object) in.readLong() : keyType == KEY_STRING ? in.readUTF() : null;
+            receivedKeys.increment();
+            for (Listener listener : listeners.getOrDefault(cache, Collections.emptyList())) {
+                listener.invalidate(key);
+            }
+        }
+        receivedDatagrams.increment();
+    }
+}
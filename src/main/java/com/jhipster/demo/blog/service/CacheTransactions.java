@@ -0,0 +1,125 @@
+package com.jhipster.demo.blog.service;
+
+import com.jhipster.demo.blog.config.ApplicationProperties;
+import java.time.Duration;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * How the application caches interact with the reactive transactions and with the read replicas.
+ */
+final class CacheTransactions {
+
+    private CacheTransactions() {}
+
+    /**
+     * Tells how long after a write a load may still read the previous value, from a replica which didn't replicate the write
+     * yet. The replicas are expected to catch up within the read-your-writes window, see
+     * {@link com.jhipster.demo.blog.config.RoutingConnectionFactory}, and without replicas every load reads the primary.
+     */
+    static Duration staleReadWindow(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Database.Replicas replicas = applicationProperties.getDatabase().getReplicas();
+        return replicas.getUrls().isEmpty() ? Duration.ZERO : replicas.getReadYourWritesWindow();
+    }
+
+    /**
+     * Tells whether the caches may be used: the read-write transactions bypass them, so they neither see a value older than
+     * their own view of the database, nor cache a value which is not committed yet.
+     */
+    static Mono<Boolean> isCacheable() {
+        return TransactionSynchronizationManager
+            .forCurrentTransaction()
+            .map(
+                synchronizationManager ->
+                    !synchronizationManager.isActualTransactionActive() || synchronizationManager.isCurrentTransactionReadOnly()
+            )
+            .onErrorResume(NoTransactionException.class, e -> Mono.just(true));
+    }
+
+    /**
+     * Tells whether a value just loaded may be stored in a cache: not within a read-write transaction, whose view may include
+     * uncommitted changes, nor within a read-only one when the read-only work goes to replicas, which may be behind.
+     *
+     * @param replicas whether the read-only work goes to replicas.
+     */
+    static Mono<Boolean> isStorable(boolean replicas) {
+        return TransactionSynchronizationManager
+            .forCurrentTransaction()
+            .map(
+                synchronizationManager ->
+                    synchronizationManager.isCurrentTransactionReadOnly() ? !replicas : !synchronizationManager.isActualTransactionActive()
+            )
+            .onErrorResume(NoTransactionException.class, e -> Mono.just(true));
+    }
+
+    /**
+     * Applies an invalidation right away, and again once the current transaction completes, whether it commits or rolls back,
+     * so that the cache doesn't keep a value read while the transaction was running.
+     *
+     * @param invalidation drops the cached values.
+     * @param afterTransaction drops the cached values again and tells the other instances, run when the current transaction
+     * completes, or right away without a transaction.
+     */
+    static Mono<Void> invalidate(Runnable invalidation, Runnable afterTransaction) {
+        return Mono
+            .fromRunnable(invalidation)
+            .then(TransactionSynchronizationManager.forCurrentTransaction())
+            .filter(TransactionSynchronizationManager::isSynchronizationActive)
+            .map(
+                synchronizationManager -> {
+                    synchronizationManager.registerSynchronization(
+                        new TransactionSynchronization() {
+                            @Override
+                            public Mono<Void> afterCompletion(int status) {
+                                return Mono.fromRunnable(afterTransaction);
+                            }
+                        }
+                    );
+                    return true;
+                }
+            )
+            .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+            .switchIfEmpty(Mono.fromRunnable(afterTransaction))
+            .then();
+    }
+
+    /**
+     * Runs an update of a cache once the current transaction commits, so that the cache never holds a value which could be
+     * rolled back.
+     *
+     * @param afterCommit updates the cache, run when the current transaction commits, or right away without a transaction.
+     */
+    static Mono<Void> afterCommit(Runnable afterCommit) {
+        return afterCompletion(afterCommit, () -> {});
+    }
+
+    /**
+     * Runs an update of a cache once the current transaction commits, or another one if it doesn't.
+     *
+     * @param afterCommit updates the cache, run when the current transaction commits, or right away without a transaction.
+     * @param afterRollback run when the current transaction rolls back, or when its outcome is unknown.
+     */
+    static Mono<Void> afterCompletion(Runnable afterCommit, Runnable afterRollback) {
+        return TransactionSynchronizationManager
+            .forCurrentTransaction()
+            .filter(TransactionSynchronizationManager::isSynchronizationActive)
+            .map(
+                synchronizationManager -> {
+                    synchronizationManager.registerSynchronization(
+                        new TransactionSynchronization() {
+                            @Override
+                            public Mono<Void> afterCompletion(int status) {
+                                return Mono.fromRunnable(status == STATUS_COMMITTED ? afterCommit : afterRollback);
+                            }
+                        }
+                    );
+                    return true;
+                }
+            )
+            .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+            .switchIfEmpty(Mono.fromRunnable(afterCommit))
+            .then();
+    }
+}
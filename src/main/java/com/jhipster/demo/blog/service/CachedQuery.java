@@ -0,0 +1,20 @@
+package com.jhipster.demo.blog.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Caches the results of the queries a repository method runs through {@link EntityManager#query}, in the
+ * {@link QueryResultCache}.
+ * <p>
+ * The method must return a {@link reactor.core.publisher.Mono} or a {@link reactor.core.publisher.Flux}, and must be
+ * declared on the interface the callers use, as the annotation is looked up on the invoked method.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface CachedQuery {
+}
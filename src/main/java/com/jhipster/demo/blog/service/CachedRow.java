@@ -0,0 +1,179 @@
+package com.jhipster.demo.blog.service;
+
+import io.r2dbc.spi.Blob;
+import io.r2dbc.spi.Clob;
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import org.springframework.lang.Nullable;
+
+/**
+ * A copy of the column values of a result row, which stays readable once the result is consumed, so the
+ * {@link QueryResultCache} can map it again for every reader.
+ * <p>
+ * A column is only returned as a type its value already is, any other type fails, so the {@link ColumnConverter}
+ * converts the value itself.
+ */
+final class CachedRow implements Row {
+
+    private static final int ROW_OVERHEAD = 32;
+    private static final int VALUE_OVERHEAD = 16;
+
+    private final Columns columns;
+    private final Object[] values;
+    private final boolean cacheable;
+    private final int weight;
+
+    private CachedRow(Columns columns, Object[] values, boolean cacheable, int weight) {
+        this.columns = columns;
+        this.values = values;
+        this.cacheable = cacheable;
+        this.weight = weight;
+    }
+
+    /**
+     * Creates the function copying the rows of one result, which share the column names of the first row.
+     */
+    static BiFunction<Row, RowMetadata, CachedRow> copier() {
+        return new BiFunction<>() {
+            private Columns columns;
+
+            @Override
+            public CachedRow apply(Row row, RowMetadata metadata) {
+                if (columns == null) {
+                    columns = new Columns(metadata.getColumnNames());
+                }
+                Object[] values = new Object[columns.names.size()];
+                boolean cacheable = true;
+                int weight = ROW_OVERHEAD;
+                for (int i = 0; i < values.length; i++) {
+                    Object value = row.get(i);
+                    if (value instanceof ByteBuffer) {
+                        ByteBuffer buffer = (ByteBuffer) value;
+                        byte[] bytes = new byte[buffer.remaining()];
+                        buffer.duplicate().get(bytes);
+                        value = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+                    } else if (value instanceof Clob || value instanceof Blob) {
+                        // streamed values can only be read once
+                        cacheable = false;
+                    }
+                    values[i] = value;
+                    weight += weigh(value);
+                }
+                return new CachedRow(columns, values, cacheable, weight);
+            }
+        };
+    }
+
+    private static int weigh(@Nullable Object value) {
+        if (value instanceof CharSequence) {
+            return VALUE_OVERHEAD + 24 + 2 * ((CharSequence) value).length();
+        }
+        if (value instanceof byte[]) {
+            return VALUE_OVERHEAD + ((byte[]) value).length;
+        }
+        if (value instanceof ByteBuffer) {
+            return VALUE_OVERHEAD + 48 + ((ByteBuffer) value).remaining();
+        }
+        return VALUE_OVERHEAD + 8;
+    }
+
+    /**
+     * @return whether all the values could be copied, streamed values can't.
+     */
+    boolean isCacheable() {
+        return cacheable;
+    }
+
+    /**
+     * @return the estimated memory held by the row, in bytes.
+     */
+    int getWeight() {
+        return weight;
+    }
+
+    RowMetadata getMetadata() {
+        return columns;
+    }
+
+    @Override
+    public <T> T get(int index, Class<T> type) {
+        return cast(values[index], type, index);
+    }
+
+    @Override
+    public <T> T get(String name, Class<T> type) {
+        return cast(values[columns.indexOf(name)], type, name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(@Nullable Object value, Class<T> type, Object column) {
+        if (value == null || type == Object.class || type.isInstance(value)) {
+            return (T) value;
+        }
+        if (value instanceof ByteBuffer && type == byte[].class) {
+            ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return (T) bytes;
+        }
+        throw new IllegalArgumentException("Column " + column + " holds a " + value.getClass().getName() + ", not a " + type.getName());
+    }
+
+    /**
+     * The column names of a result, looked up ignoring the case, as the drivers do.
+     */
+    private static final class Columns implements RowMetadata {
+
+        private final List<String> names;
+        private final Map<String, Integer> indexes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+        Columns(Collection<String> names) {
+            this.names = Collections.unmodifiableList(new ArrayList<>(names));
+            for (int i = 0; i < this.names.size(); i++) {
+                indexes.putIfAbsent(this.names.get(i), i);
+            }
+        }
+
+        int indexOf(String name) {
+            Integer index = indexes.get(name);
+            if (index == null) {
+                throw new IllegalArgumentException("No column " + name + " in " + names);
+            }
+            return index;
+        }
+
+        @Override
+        public ColumnMetadata getColumnMetadata(int index) {
+            String name = names.get(index);
+            return () -> name;
+        }
+
+        @Override
+        public ColumnMetadata getColumnMetadata(String name) {
+            return getColumnMetadata(indexOf(name));
+        }
+
+        @Override
+        public Iterable<? extends ColumnMetadata> getColumnMetadatas() {
+            List<ColumnMetadata> metadatas = new ArrayList<>();
+            for (int i = 0; i < names.size(); i++) {
+                metadatas.add(getColumnMetadata(i));
+            }
+            return metadatas;
+        }
+
+        @Override
+        public Collection<String> getColumnNames() {
+            return names;
+        }
+    }
+}
@@ -1,9 +1,16 @@
 package com.jhipster.demo.blog.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
 import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
+import org.springframework.data.r2dbc.mapping.SettableValue;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.util.ClassUtils;
@@ -16,6 +23,7 @@ public class ColumnConverter {
 
     private final ConversionService conversionService;
     private final R2dbcCustomConversions conversions;
+    private final Map<Class<?>, Class<?>> writeTargets = new ConcurrentHashMap<>();
 
     public ColumnConverter(R2dbcCustomConversions conversions, ReactiveDataAccessStrategy dataAccess) {
         this.conversionService = dataAccess.getConverter().getConversionService();
@@ -47,19 +55,158 @@ public class ColumnConverter {
 
     /**
      * Convert a value from the {@link Row} to a type - throws an exception, it it's impossible.
+     * <p>
+     * The column is looked up by its name on each call, the row mappers use a {@link ColumnResolver} instead, which looks
+     * the columns up once per result.
      * @param row which contains the column values.
-     * @param target class.
+     * @param metadata the metadata of the row.
      * @param columnName the name of the column which to convert.
+     * @param target class.
      * @param <T> the parameter for the intended type.
      * @return the value which can be constructed from the input.
      */
-    public <T> T fromRow(Row row, String columnName, Class<T> target) {
-        try {
-            // try, directly the driver
-            return row.get(columnName, target);
-        } catch (Exception e) {
-            Object obj = row.get(columnName);
-            return convert(obj, target);
+    public <T> T fromRow(Row row, RowMetadata metadata, String columnName, Class<T> target) {
+        return reader(metadata, columnName, target).read(row);
+    }
+
+    /**
+     * Resolves how a column of a result is read: its index, and whether the driver's type of the column already is the target
+     * type, or needs a conversion.
+     * @param metadata the metadata of the result.
+     * @param columnName the name of the column, looked up ignoring the case, as the drivers do.
+     * @param target class.
+     * @param <T> the parameter for the intended type.
+     * @return the reader of the column, valid for all the rows of the result.
+     */
+    public <T> ColumnReader<T> reader(RowMetadata metadata, String columnName, Class<T> target) {
+        int index = 0;
+        for (String name : metadata.getColumnNames()) {
+            if (name.equalsIgnoreCase(columnName)) {
+                Class<?> columnType = metadata.getColumnMetadata(index).getJavaType();
+                return new ColumnReader<>(this, index, target, columnType != null && ClassUtils.isAssignable(target, columnType));
+            }
+            index++;
+        }
+        throw new IllegalArgumentException("No column " + columnName + " in " + metadata.getColumnNames());
+    }
+
+    /**
+     * Creates a resolver of the columns a row mapper reads.
+     * @param resolve resolves the readers of the columns, for the metadata of a result and a column prefix.
+     * @param <C> the type holding the readers of the columns.
+     * @return the resolver, which keeps the readers of each result.
+     */
+    public <C> ColumnResolver<C> resolver(BiFunction<RowMetadata, String, C> resolve) {
+        return new ColumnResolver<>(resolve);
+    }
+
+    /**
+     * Converts a value of an entity to the value written into its column, with the writing conversions.
+     * @param value to convert.
+     * @param type the type of the entity's property.
+     * @return the value to bind, which keeps the column type when the value is {@code null}.
+     */
+    public SettableValue toColumn(@Nullable Object value, Class<?> type) {
+        Class<?> columnType = writeTargets.computeIfAbsent(
+            type,
+            t -> conversions.getCustomWriteTarget(t).orElse(Enum.class.isAssignableFrom(t) ? String.class : t)
+        );
+        if (value == null) {
+            return SettableValue.empty(columnType);
+        }
+        if (columnType == type) {
+            return SettableValue.from(value);
+        }
+        if (value instanceof Enum) {
+            return SettableValue.from(((Enum<?>) value).name());
+        }
+        return SettableValue.from(conversionService.convert(value, columnType));
+    }
+
+    /**
+     * Reads a column of the rows of a result by its index.
+     */
+    public static final class ColumnReader<T> {
+
+        private final ColumnConverter converter;
+        private final int index;
+        private final Class<T> target;
+        private final boolean direct;
+
+        ColumnReader(ColumnConverter converter, int index, Class<T> target, boolean direct) {
+            this.converter = converter;
+            this.index = index;
+            this.target = target;
+            this.direct = direct;
+        }
+
+        /**
+         * @param row a row of the result the reader was resolved for.
+         * @return the value of the column, converted to the target type.
+         */
+        public T read(Row row) {
+            if (direct) {
+                return row.get(index, target);
+            }
+            // the driver doesn't tell the column type, or it's another one
+            return converter.convert(row.get(index), target);
+        }
+    }
+
+    /**
+     * Keeps the column readers of a row mapper per result, so that the columns are looked up once per result rather than
+     * once per row. The results are told apart by their {@link RowMetadata}, the readers are dropped with it.
+     */
+    public static final class ColumnResolver<C> {
+
+        private final BiFunction<RowMetadata, String, C> resolve;
+        private final Cache<RowMetadata, Resolved<C>> resolved = Caffeine.newBuilder().weakKeys().build();
+        // the rows of a result are mapped one after the other, so the last result is looked up first
+        private volatile LastResolved<C> last;
+
+        ColumnResolver(BiFunction<RowMetadata, String, C> resolve) {
+            this.resolve = resolve;
+        }
+
+        /**
+         * @param metadata the metadata of the mapped row.
+         * @param prefix the prefix of the column names.
+         * @return the readers of the columns.
+         */
+        public C get(RowMetadata metadata, String prefix) {
+            LastResolved<C> last = this.last;
+            if (last != null && last.metadata == metadata && last.columns.prefix.equals(prefix)) {
+                return last.columns.columns;
+            }
+            Resolved<C> columns = resolved.getIfPresent(metadata);
+            if (columns == null || !columns.prefix.equals(prefix)) {
+                columns = new Resolved<>(prefix, resolve.apply(metadata, prefix));
+                resolved.put(metadata, columns);
+            }
+            this.last = new LastResolved<>(metadata, columns);
+            return columns.columns;
+        }
+    }
+
+    private static final class Resolved<C> {
+
+        private final String prefix;
+        private final C columns;
+
+        Resolved(String prefix, C columns) {
+            this.prefix = prefix;
+            this.columns = columns;
+        }
+    }
+
+    private static final class LastResolved<C> {
+
+        private final RowMetadata metadata;
+        private final Resolved<C> columns;
+
+        LastResolved(RowMetadata metadata, Resolved<C> columns) {
+            this.metadata = metadata;
+            this.columns = columns;
         }
     }
 }
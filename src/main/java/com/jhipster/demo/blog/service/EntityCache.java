@@ -0,0 +1,257 @@
+package com.jhipster.demo.blog.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jhipster.demo.blog.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps the entities loaded by id, so that reading the same entity again doesn't hit the database.
+ * <p>
+ * The repositories read through this cache, and invalidate the entities they write or delete. An invalidation is applied
+ * right away and again when the current transaction completes, whether it commits or rolls back, so the cache never keeps
+ * a value read before the transaction ended. The read-write transactions bypass the cache, so they neither see a value older
+ * than their own view of the database, nor cache a value which is not committed yet.
+ * <p>
+ * The invalidations are also published on the {@link CacheInvalidationBus} once the transaction completes, so that the other
+ * instances of the application drop the entities too.
+ * <p>
+ * When the reads go to replicas, an entity loaded within the read-your-writes window after its invalidation is returned but
+ * not cached, as the replica may not have the change yet.
+ * <p>
+ * The concurrent misses for the same entity share a single load. The cached instances are shared by all the readers, and
+ * must not be modified.
+ */
+@Service
+public class EntityCache {
+
+    private static final String CACHE_NAME_PREFIX = "entity.";
+
+    private final ApplicationProperties.EntityCache properties;
+    private final Duration staleReadWindow;
+    private final MeterRegistry meterRegistry;
+    private final CacheInvalidationBus invalidationBus;
+
+    private final Map<Class<?>, TypeCache> caches = new ConcurrentHashMap<>();
+
+    public EntityCache(ApplicationProperties applicationProperties, MeterRegistry meterRegistry, CacheInvalidationBus invalidationBus) {
+        this.properties = applicationProperties.getEntityCache();
+        this.staleReadWindow = CacheTransactions.staleReadWindow(applicationProperties);
+        this.meterRegistry = meterRegistry;
+        this.invalidationBus = invalidationBus;
+    }
+
+    /**
+     * Returns the cached entity, or loads it, if it's not cached yet.
+     *
+     * @param entityType the type of the entity.
+     * @param id the id of the entity.
+     * @param loader loads the entity from the database.
+     * @param <T> the type of the entity.
+     * @return the entity, or empty if there is no entity with this id.
+     */
+    public <T> Mono<T> get(Class<T> entityType, Object id, Supplier<Mono<T>> loader) {
+        TypeCache typeCache = cache(entityType);
+        return CacheTransactions
+            .isCacheable()
+            .flatMap(
+                cacheable -> {
+                    if (!cacheable) {
+                        return loader.get();
+                    }
+                    Object cached = typeCache.entities.getIfPresent(id);
+                    if (cached != null) {
+                        return Mono.just(entityType.cast(cached));
+                    }
+                    return load(typeCache, id, loader).map(entityType::cast);
+                }
+            );
+    }
+
+    /**
+     * Loads an entity which is not cached, the concurrent misses for the same id wait for the same load.
+     */
+    private Mono<?> load(TypeCache typeCache, Object id, Supplier<? extends Mono<?>> loader) {
+        return typeCache.loads.computeIfAbsent(
+            id,
+            key -> {
+                typeCache.loadCount.increment();
+                // an invalidation during the load means the loaded value may already be stale
+                long generation = typeCache.generation.get();
+                AtomicReference<Mono<?>> load = new AtomicReference<>();
+                load.set(
+                    loader
+                        .get()
+                        .doOnNext(
+                            entity -> {
+                                if (typeCache.generation.get() == generation && !typeCache.invalidatedRecently(key)) {
+                                    typeCache.entities.put(key, entity);
+                                }
+                            }
+                        )
+                        // an invalidation may have replaced this load by a newer one, which stays registered
+                        .doFinally(signal -> typeCache.loads.remove(key, load.get()))
+                        .cache()
+                );
+                return load.get();
+            }
+        );
+    }
+
+    /**
+     * Drops an entity which is written or deleted.
+     *
+     * @param entityType the type of the entity.
+     * @param id the id of the entity.
+     * @return completes once the invalidation is applied, and registered for the end of the current transaction.
+     */
+    public Mono<Void> evict(Class<?> entityType, Object id) {
+        return invalidate(cache(entityType), id);
+    }
+
+    /**
+     * Drops all the entities of a type, for a change which may affect any of them.
+     *
+     * @param entityType the type of the entities.
+     * @return completes once the invalidation is applied, and registered for the end of the current transaction.
+     */
+    public Mono<Void> evictAll(Class<?> entityType) {
+        return invalidate(cache(entityType), null);
+    }
+
+    /**
+     * Registers a listener for the invalidations of a type, whether they come from this instance or from the other ones, for
+     * the values derived from these entities which are kept elsewhere.
+     *
+     * @param entityType the type of the entities.
+     * @param listener called with the invalidated id, or {@code null} when all the entities are invalidated.
+     */
+    public void addListener(Class<?> entityType, CacheInvalidationBus.Listener listener) {
+        cache(entityType).listeners.add(listener);
+    }
+
+    /**
+     * Declares that the cached entities of a type embed entities of another type, so that they are all dropped whenever one of
+     * the embedded entities is invalidated, on this instance or on the other ones.
+     *
+     * @param entityType the type of the cached entities.
+     * @param embeddedType the type of the entities they embed.
+     */
+    public void addEmbedded(Class<?> entityType, Class<?> embeddedType) {
+        TypeCache typeCache = cache(entityType);
+        // the ids of the embedded entities don't tell which cached entities embed them
+        addListener(embeddedType, id -> typeCache.invalidate(null));
+    }
+
+    /**
+     * Drops all the cached entities right away.
+     */
+    public void clear() {
+        caches.values().forEach(typeCache -> typeCache.invalidate(null));
+    }
+
+    private Mono<Void> invalidate(TypeCache typeCache, @Nullable Object id) {
+        Runnable afterTransaction = () -> {
+            typeCache.invalidate(id);
+            invalidationBus.publish(typeCache.name, id);
+        };
+        return CacheTransactions.invalidate(() -> typeCache.invalidate(id), afterTransaction);
+    }
+
+    private TypeCache cache(Class<?> entityType) {
+        return caches.computeIfAbsent(entityType, this::createCache);
+    }
+
+    private TypeCache createCache(Class<?> entityType) {
+        Cache<Object, Object> entities = Caffeine
+            .newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfterWrite(properties.getTimeToLive())
+            .recordStats()
+            .build();
+        String name = entityType.getSimpleName().toLowerCase();
+        Tags tags = Tags.of("kind", "entity");
+        Counter loadCount = Counter
+            .builder("cache.loads")
+            .description("Loads of the entities which were not cached, the concurrent misses for the same id count once")
+            .tags(tags.and("cache", name))
+            .register(meterRegistry);
+        TypeCache typeCache = new TypeCache(CACHE_NAME_PREFIX + name, entities, loadCount, staleReadWindow);
+        invalidationBus.subscribe(typeCache.name, typeCache::invalidate);
+        CaffeineCacheMetrics.monitor(meterRegistry, entities, name, tags);
+        Gauge
+            .builder("cache.hit.ratio", entities, cache -> cache.stats().hitRate())
+            .description("Share of the lookups which found the entity in the cache")
+            .tags(tags.and("cache", name))
+            .register(meterRegistry);
+        return typeCache;
+    }
+
+    private static final class TypeCache {
+
+        private final String name;
+        private final Cache<Object, Object> entities;
+        private final Map<Object, Mono<?>> loads = new ConcurrentHashMap<>();
+        private final List<CacheInvalidationBus.Listener> listeners = new CopyOnWriteArrayList<>();
+        private final Counter loadCount;
+        private final AtomicLong generation = new AtomicLong();
+        private final long staleReadWindowNanos;
+        // the ids invalidated within the stale read window, null without replicas
+        @Nullable
+        private final Cache<Object, Boolean> recentInvalidations;
+        private volatile long allInvalidatedAt;
+
+        TypeCache(String name, Cache<Object, Object> entities, Counter loadCount, Duration staleReadWindow) {
+            this.name = name;
+            this.entities = entities;
+            this.loadCount = loadCount;
+            this.staleReadWindowNanos = staleReadWindow.toNanos();
+            this.recentInvalidations =
+                staleReadWindow.isZero() ? null : Caffeine.newBuilder().expireAfterWrite(staleReadWindow).<Object, Boolean>build();
+            this.allInvalidatedAt = System.nanoTime() - staleReadWindowNanos;
+        }
+
+        void invalidate(@Nullable Object id) {
+            generation.incrementAndGet();
+            // the running loads may return the old value, the next readers load again
+            if (id != null) {
+                if (recentInvalidations != null) {
+                    recentInvalidations.put(id, Boolean.TRUE);
+                }
+                loads.remove(id);
+                entities.invalidate(id);
+            } else {
+                allInvalidatedAt = System.nanoTime();
+                loads.clear();
+                entities.invalidateAll();
+            }
+            listeners.forEach(listener -> listener.invalidate(id));
+        }
+
+        /**
+         * Tells whether an entity was invalidated within the stale read window, so that a load may have read it from a
+         * replica which is behind.
+         */
+        boolean invalidatedRecently(Object id) {
+            if (recentInvalidations == null) {
+                return false;
+            }
+            return recentInvalidations.getIfPresent(id) != null || System.nanoTime() - allInvalidatedAt < staleReadWindowNanos;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.jhipster.demo.blog.service;
+
+import com.jhipster.demo.blog.config.ApplicationProperties;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps the total number of rows per entity, and per filter, so paginated list requests don't need a {@code COUNT(*)} each time.
+ * <p>
+ * The unfiltered counts are adjusted when an insert or a delete of {@link EntityManager} commits, the filtered counts are
+ * dropped when any change of their entity commits, as it's unknown whether the changed row matches the filter. A rolled back
+ * change leaves the counts as they are. All cached counts are reloaded periodically, which corrects the drift caused by changes
+ * made outside of the application.
+ * <p>
+ * A count loaded while its entity changed is not stored, as it may not include the change. Neither is a count loaded within a
+ * read-write transaction, or from a replica.
+ * <p>
+ * The changes are published on the {@link CacheInvalidationBus} once the current transaction commits, with the entity class
+ * name as key, and the other instances of the application drop the counts of the entity, as they can't apply the change.
+ */
+@Service
+public class EntityCountCache {
+
+    static final String CACHE_NAME = "count";
+
+    private static final String UNFILTERED = "";
+
+    // Filters come from the request, so the number of cached counts is capped.
+    private static final int MAX_CACHED_COUNTS = 1024;
+
+    private final Logger log = LoggerFactory.getLogger(EntityCountCache.class);
+
+    private final Map<CountKey, CachedCount> counts = new ConcurrentHashMap<>();
+
+    // incremented on every change of an entity, under its own lock, together with the update of the counts
+    private final Map<Class<?>, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final Duration refreshInterval;
+
+    private final boolean replicas;
+
+    private final CacheInvalidationBus invalidationBus;
+
+    private Disposable refreshes;
+
+    public EntityCountCache(ApplicationProperties applicationProperties, CacheInvalidationBus invalidationBus) {
+        this.refreshInterval = applicationProperties.getCountCache().getRefreshInterval();
+        this.replicas = !CacheTransactions.staleReadWindow(applicationProperties).isZero();
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(CACHE_NAME, this::invalidateRemote);
+    }
+
+    /**
+     * Starts reloading the cached counts periodically.
+     */
+    @PostConstruct
+    public void start() {
+        refreshes =
+            Flux
+                .interval(refreshInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> refresh())
+                .subscribe(null, e -> log.error("The entity counts are no longer refreshed", e));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refreshes != null) {
+            refreshes.dispose();
+        }
+    }
+
+    /**
+     * Returns the cached count, or loads it, if it's not cached yet.
+     *
+     * @param entityType the counted entity.
+     * @param filter identifies the filter, including its values, or an empty string for all the rows.
+     * @param loader runs the count query.
+     * @return the number of rows.
+     */
+    public Mono<Long> count(Class<?> entityType, String filter, Supplier<Mono<Long>> loader) {
+        CountKey key = new CountKey(entityType, filter);
+        CachedCount cached = counts.get(key);
+        if (cached != null) {
+            return Mono.just(cached.count.get());
+        }
+        AtomicLong generation = generation(entityType);
+        long loadedAt = generation.get();
+        return loader.get().flatMap(total -> storeIfCurrent(key, generation, loadedAt, total, loader).thenReturn(total));
+    }
+
+    private Mono<Void> storeIfCurrent(CountKey key, AtomicLong generation, long loadedAt, long total, Supplier<Mono<Long>> loader) {
+        return CacheTransactions
+            .isStorable(replicas)
+            .filter(storable -> storable)
+            .doOnNext(storable -> store(key, generation, loadedAt, total, loader))
+            .then();
+    }
+
+    private void store(CountKey key, AtomicLong generation, long loadedAt, long total, Supplier<Mono<Long>> loader) {
+        synchronized (generation) {
+            if (generation.get() != loadedAt) {
+                return;
+            }
+            CachedCount cached = counts.get(key);
+            if (cached != null) {
+                cached.count.set(total);
+            } else if (counts.size() < MAX_CACHED_COUNTS) {
+                counts.put(key, new CachedCount(loader, total));
+            }
+        }
+    }
+
+    private AtomicLong generation(Class<?> entityType) {
+        return generations.computeIfAbsent(entityType, type -> new AtomicLong());
+    }
+
+    /**
+     * Returns the cached count without loading it.
+     *
+     * @param entityType the counted entity.
+     * @param filter identifies the filter, including its values, or an empty string for all the rows.
+     * @return the number of rows, or {@code null}, if it's not cached.
+     */
+    public Long getIfPresent(Class<?> entityType, String filter) {
+        CachedCount cached = counts.get(new CountKey(entityType, filter));
+        return cached != null ? cached.count.get() : null;
+    }
+
+    /**
+     * Tells the version of the counts of an entity, to be read before loading a count with {@link #put}.
+     *
+     * @param entityType the counted entity.
+     * @return the version, which changes on every change of the entity.
+     */
+    public long currentGeneration(Class<?> entityType) {
+        return generation(entityType).get();
+    }
+
+    /**
+     * Stores a count which was computed as a side effect of another query, unless the entity changed since the query started.
+     *
+     * @param entityType the counted entity.
+     * @param filter identifies the filter, including its values, or an empty string for all the rows.
+     * @param loadedAt the {@link #currentGeneration} read before the query started.
+     * @param total the number of rows.
+     * @param loader runs the count query, used by the background refresh.
+     * @return completes once the count is stored, or skipped.
+     */
+    public Mono<Void> put(Class<?> entityType, String filter, long loadedAt, long total, Supplier<Mono<Long>> loader) {
+        return storeIfCurrent(new CountKey(entityType, filter), generation(entityType), loadedAt, total, loader);
+    }
+
+    /**
+     * Records that an entity was inserted.
+     *
+     * @param entityType the type of the inserted entity.
+     * @return completes once the change is registered for the end of the current transaction, or applied without one.
+     */
+    public Mono<Void> recordInsert(Class<?> entityType) {
+        return record(entityType, 1);
+    }
+
+    /**
+     * Records that entities were deleted.
+     *
+     * @param entityType the type of the deleted entities.
+     * @param deleted the number of deleted rows.
+     * @return completes once the change is registered for the end of the current transaction, or applied without one.
+     */
+    public Mono<Void> recordDelete(Class<?> entityType, long deleted) {
+        return record(entityType, -deleted);
+    }
+
+    /**
+     * Records that an entity was updated, which does not change the total, but may change the filtered counts.
+     *
+     * @param entityType the type of the updated entity.
+     * @return completes once the change is registered for the end of the current transaction, or applied without one.
+     */
+    public Mono<Void> recordUpdate(Class<?> entityType) {
+        return record(entityType, 0);
+    }
+
+    private Mono<Void> record(Class<?> entityType, long delta) {
+        // the counts loaded from now on until the transaction completes may include the change, or not
+        return Mono
+            .fromRunnable(() -> discardLoads(entityType))
+            .then(
+                CacheTransactions.afterCompletion(
+                    () -> {
+                        adjust(entityType, delta);
+                        invalidationBus.publish(CACHE_NAME, entityType.getName());
+                    },
+                    () -> discardLoads(entityType)
+                )
+            );
+    }
+
+    private Mono<Void> publish(@Nullable Class<?> entityType) {
+        return CacheTransactions.afterCommit(() -> invalidationBus.publish(CACHE_NAME, entityType != null ? entityType.getName() : null));
+    }
+
+    private void discardLoads(Class<?> entityType) {
+        AtomicLong generation = generation(entityType);
+        synchronized (generation) {
+            generation.incrementAndGet();
+        }
+    }
+
+    private void adjust(Class<?> entityType, long delta) {
+        AtomicLong generation = generation(entityType);
+        synchronized (generation) {
+            generation.incrementAndGet();
+            CachedCount cached = counts.get(new CountKey(entityType, UNFILTERED));
+            if (cached != null) {
+                cached.count.addAndGet(delta);
+            }
+            counts.keySet().removeIf(key -> key.entityType == entityType && !key.filter.isEmpty());
+        }
+    }
+
+    /**
+     * Drops all the counts of the entity, they are loaded again on the next request.
+     *
+     * @param entityType the changed entity.
+     * @return completes once the counts are dropped, and the change registered for the end of the current transaction.
+     */
+    public Mono<Void> invalidate(Class<?> entityType) {
+        return Mono.fromRunnable(() -> invalidateNow(entityType)).then(publish(entityType));
+    }
+
+    /**
+     * Drops all the counts.
+     *
+     * @return completes once the counts are dropped, and the change registered for the end of the current transaction.
+     */
+    public Mono<Void> invalidateAll() {
+        return Mono.fromRunnable(this::invalidateAllNow).then(publish(null));
+    }
+
+    private void invalidateNow(Class<?> entityType) {
+        AtomicLong generation = generation(entityType);
+        synchronized (generation) {
+            generation.incrementAndGet();
+            counts.keySet().removeIf(key -> key.entityType == entityType);
+        }
+    }
+
+    private void invalidateAllNow() {
+        // the loads in flight are discarded first, then their counts
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        counts.clear();
+    }
+
+    private void invalidateRemote(@Nullable Object entityTypeName) {
+        if (entityTypeName == null) {
+            invalidateAllNow();
+            return;
+        }
+        // an entity which was never counted here has nothing to drop
+        generations.keySet().stream().filter(type -> type.getName().equals(entityTypeName)).findFirst().ifPresent(this::invalidateNow);
+    }
+
+    /**
+     * Reloads all the cached counts.
+     *
+     * @return completes once the counts are reloaded.
+     */
+    public Mono<Void> refresh() {
+        return Flux
+            .fromIterable(counts.entrySet())
+            .flatMap(
+                entry -> {
+                    CachedCount cached = entry.getValue();
+                    AtomicLong generation = generation(entry.getKey().entityType);
+                    long loadedAt = generation.get();
+                    return cached.loader
+                        .get()
+                        .doOnNext(total -> store(entry.getKey(), generation, loadedAt, total, cached.loader))
+                        .onErrorResume(
+                            e -> {
+                                log.warn("Could not refresh an entity count: {}", e.getMessage());
+                                return Mono.empty();
+                            }
+                        );
+                },
+                4
+            )
+            .then();
+    }
+
+    private static final class CachedCount {
+
+        private final Supplier<Mono<Long>> loader;
+        private final AtomicLong count;
+
+        CachedCount(Supplier<Mono<Long>> loader, long count) {
+            this.loader = loader;
+            this.count = new AtomicLong(count);
+        }
+    }
+
+    private static final class CountKey {
+
+        private final Class<?> entityType;
+        private final String filter;
+
+        CountKey(Class<?> entityType, String filter) {
+            this.entityType = entityType;
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CountKey)) {
+                return false;
+            }
+            CountKey other = (CountKey) o;
+            return entityType == other.entityType && filter.equals(other.filter);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(entityType, filter);
+        }
+    }
+}
@@ -1,33 +1,71 @@
 package com.jhipster.demo.blog.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.data.r2dbc.core.DatabaseClient.GenericExecuteSpec;
 import org.springframework.data.r2dbc.core.DatabaseClient.GenericInsertSpec;
+import org.springframework.data.r2dbc.core.PreparedOperation;
 import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
+import org.springframework.data.r2dbc.dialect.BindMarker;
+import org.springframework.data.r2dbc.dialect.BindMarkers;
+import org.springframework.data.r2dbc.dialect.BindTarget;
+import org.springframework.data.r2dbc.dialect.Bindings;
+import org.springframework.data.r2dbc.dialect.R2dbcDialect;
 import org.springframework.data.r2dbc.mapping.OutboundRow;
 import org.springframework.data.r2dbc.mapping.SettableValue;
+import org.springframework.data.r2dbc.query.BoundCondition;
 import org.springframework.data.r2dbc.query.UpdateMapper;
 import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
 import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.CriteriaDefinition;
+import org.springframework.data.relational.core.sql.Condition;
+import org.springframework.data.relational.core.sql.Expressions;
+import org.springframework.data.relational.core.sql.Functions;
+import org.springframework.data.relational.core.sql.IdentifierProcessing;
 import org.springframework.data.relational.core.sql.OrderByField;
 import org.springframework.data.relational.core.sql.Select;
-import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
-import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectOrdered;
+import org.springframework.data.relational.core.sql.SelectBuilder.SelectWhere;
 import org.springframework.data.relational.core.sql.SqlIdentifier;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.data.relational.core.sql.render.SqlRenderer;
+import org.springframework.data.util.ClassTypeInformation;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
 /**
  * Helper class to create SQL selects based on the entity, paging parameters and criteria.
@@ -55,77 +93,520 @@ public class EntityManager {
         }
     }
 
+    /**
+     * A rendered select statement together with the values for its bind markers, which can be passed directly to
+     * {@link DatabaseClient#execute(java.util.function.Supplier)}.
+     */
+    public static class PreparedSelect implements PreparedOperation<String> {
+
+        private final String sql;
+        private final Bindings bindings;
+        private final Map<BindMarker, Object> values;
+
+        PreparedSelect(String sql, @Nullable Bindings bindings, Map<BindMarker, Object> values) {
+            this.sql = sql;
+            this.bindings = bindings;
+            this.values = values;
+        }
+
+        @Override
+        public String getSource() {
+            return sql;
+        }
+
+        @Override
+        public void bindTo(BindTarget target) {
+            if (bindings != null) {
+                bindings.apply(target);
+            }
+            values.forEach((marker, value) -> marker.bind(target, value));
+        }
+
+        @Override
+        public String toQuery() {
+            return sql;
+        }
+
+        /**
+         * @return the bound values, each after its bind marker identifier or index, which identify the query together with the SQL.
+         */
+        List<Object> boundValues() {
+            List<Object> boundValues = new ArrayList<>();
+            bindTo(
+                new BindTarget() {
+                    @Override
+                    public void bind(String identifier, Object value) {
+                        boundValues.add(identifier);
+                        boundValues.add(value);
+                    }
+
+                    @Override
+                    public void bind(int index, Object value) {
+                        boundValues.add(index);
+                        boundValues.add(value);
+                    }
+
+                    @Override
+                    public void bindNull(String identifier, Class<?> type) {
+                        boundValues.add(identifier);
+                        boundValues.add(type);
+                    }
+
+                    @Override
+                    public void bindNull(int index, Class<?> type) {
+                        boundValues.add(index);
+                        boundValues.add(type);
+                    }
+                }
+            );
+            return boundValues;
+        }
+
+        @Override
+        public String toString() {
+            return sql;
+        }
+    }
+
+    /**
+     * Identifies a rendered select template: everything which changes the SQL text, but none of the bound values.
+     */
+    private static final class SelectKey {
+
+        private final Class<?> entityType;
+        private final String selectName;
+        private final Sort sort;
+        private final String criteriaShape;
+        private final boolean paged;
+        private final boolean withTotal;
+
+        SelectKey(Class<?> entityType, String selectName, Sort sort, String criteriaShape, boolean paged, boolean withTotal) {
+            this.entityType = entityType;
+            this.selectName = selectName;
+            this.sort = sort;
+            this.criteriaShape = criteriaShape;
+            this.paged = paged;
+            this.withTotal = withTotal;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SelectKey)) {
+                return false;
+            }
+            SelectKey other = (SelectKey) o;
+            return (
+                paged == other.paged &&
+                withTotal == other.withTotal &&
+                entityType.equals(other.entityType) &&
+                selectName.equals(other.selectName) &&
+                sort.equals(other.sort) &&
+                criteriaShape.equals(other.criteriaShape)
+            );
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(entityType, selectName, sort, criteriaShape, paged, withTotal);
+        }
+    }
+
+    // The sort and criteria shapes come from the request, so the number of cached templates is capped.
+    private static final int MAX_CACHED_TEMPLATES = 1024;
+
+    private static final String SELECT_KEYWORD = "SELECT ";
+    private static final String TOTAL_COUNT = "total_count";
+    private static final String TOTAL_COUNT_COLUMN = SELECT_KEYWORD + "COUNT(*) OVER () AS " + TOTAL_COUNT + ", ";
+
+    // Distinct values to find out where the dialect puts the limit and the offset in its limit clause.
+    private static final long LIMIT_PROBE = 1000000001L;
+    private static final long OFFSET_PROBE = 2000000002L;
+
+    // The longest time to live of Mono#cache, which never expires.
+    private static final Duration CACHED_FOREVER = Duration.ofMillis(Long.MAX_VALUE);
+
+    private final Logger log = LoggerFactory.getLogger(EntityManager.class);
+
     private final ReactiveDataAccessStrategy dataAccessStrategy;
     private final SqlRenderer sqlRenderer;
     private final UpdateMapper updateMapper;
     private final DatabaseClient db;
+    private final EntityCountCache countCache;
+    private final EntityCache entityCache;
+    private final QueryResultCache queryCache;
+    private final IdentifierProcessing identifierProcessing;
+
+    private final String limitClauseTemplate;
+    private final boolean limitBeforeOffset;
+
+    private final Map<SelectKey, String> selectTemplates = new ConcurrentHashMap<>();
+    private final Counter templateCacheHits;
+    private final Counter templateCacheMisses;
+
+    private final Mono<Boolean> windowFunctionsSupported;
 
     public EntityManager(
         ReactiveDataAccessStrategy dataAccessStrategy,
         SqlRenderer sqlRenderer,
         UpdateMapper updateMapper,
-        DatabaseClient db
+        DatabaseClient db,
+        R2dbcDialect dialect,
+        MeterRegistry meterRegistry,
+        EntityCountCache countCache,
+        EntityCache entityCache,
+        QueryResultCache queryCache
     ) {
         this.dataAccessStrategy = dataAccessStrategy;
         this.sqlRenderer = sqlRenderer;
         this.updateMapper = updateMapper;
         this.db = db;
+        this.countCache = countCache;
+        this.entityCache = entityCache;
+        this.queryCache = queryCache;
+        this.identifierProcessing = dialect.getIdentifierProcessing();
+
+        this.limitClauseTemplate = dialect.limit().getLimitOffset(LIMIT_PROBE, OFFSET_PROBE);
+        this.limitBeforeOffset =
+            limitClauseTemplate.indexOf(Long.toString(LIMIT_PROBE)) < limitClauseTemplate.indexOf(Long.toString(OFFSET_PROBE));
+
+        this.templateCacheHits =
+            Counter
+                .builder("sql.template.cache.gets")
+                .description("Select statements served from the rendered SQL template cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.templateCacheMisses =
+            Counter
+                .builder("sql.template.cache.gets")
+                .description("Select statements which had to be rendered")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.windowFunctionsSupported =
+            db
+                .execute("SELECT COUNT(*) OVER () AS " + TOTAL_COUNT)
+                .map(row -> Boolean.TRUE)
+                .first()
+                .defaultIfEmpty(Boolean.FALSE)
+                .onErrorResume(
+                    InvalidDataAccessResourceUsageException.class,
+                    e -> {
+                        log.info("The database doesn't support window functions, pages are counted with a separate query");
+                        return Mono.just(Boolean.FALSE);
+                    }
+                )
+                // only the answer of the database is kept, after any other error the next page probes again
+                .cache(supported -> CACHED_FOREVER, e -> Duration.ZERO, () -> Duration.ZERO)
+                .onErrorResume(
+                    e -> {
+                        log.warn("Couldn't probe the window functions, this page is counted with a separate query: {}", e.toString());
+                        return Mono.just(Boolean.FALSE);
+                    }
+                );
+
+        Gauge
+            .builder("sql.template.cache.size", selectTemplates, Map::size)
+            .description("Number of cached select templates")
+            .register(meterRegistry);
     }
 
     /**
-     * Creates an SQL select statement from the given fragment and pagination parameters.
-     * @param selectFrom a representation of a select statement.
+     * Creates an SQL select statement from the given fragment, pagination parameters and criteria.
+     * <p>
+     * The rendered SQL only depends on the shape of the parameters, while the criteria values and the
+     * page size and offset are bound through bind markers, so the template is rendered once and reused afterwards.
+     *
      * @param entityType the entity type which holds the table name.
+     * @param selectName identifies the columns and joins produced by {@code selectFrom}, it's part of the template cache key.
+     * @param selectFrom creates the representation of the select statement, only called when the template is not cached yet.
      * @param pageable page parameter, or null, if everything needs to be returned
-     * @return sql select statement
+     * @param criteria the criteria which is rendered as a where clause with bind markers, or null, if everything needs to be returned
+     * @return sql select statement with the bound criteria and paging values
+     */
+    public PreparedSelect createSelect(
+        Class<?> entityType,
+        String selectName,
+        Supplier<? extends SelectWhere> selectFrom,
+        Pageable pageable,
+        Criteria criteria
+    ) {
+        return createSelect(entityType, selectName, selectFrom, pageable, criteria, 0, false);
+    }
+
+    /**
+     * Creates an SQL select statement like {@link #createSelect(Class, String, Supplier, Pageable, Criteria)}, but it returns
+     * one row more than the page size, so {@link #toSlice(List, Pageable)} can tell whether there is a next page without counting.
+     *
+     * @param entityType the entity type which holds the table name.
+     * @param selectName identifies the columns and joins produced by {@code selectFrom}, it's part of the template cache key.
+     * @param selectFrom creates the representation of the select statement, only called when the template is not cached yet.
+     * @param pageable page parameter, it must be paged.
+     * @param criteria the criteria which is rendered as a where clause with bind markers, or null, if everything needs to be returned
+     * @return sql select statement with the bound criteria and paging values
+     */
+    public PreparedSelect createSliceSelect(
+        Class<?> entityType,
+        String selectName,
+        Supplier<? extends SelectWhere> selectFrom,
+        Pageable pageable,
+        Criteria criteria
+    ) {
+        Assert.isTrue(pageable.isPaged(), "pageable is unpaged");
+        return createSelect(entityType, selectName, selectFrom, pageable, criteria, 1, false);
+    }
+
+    /**
+     * Turns the rows selected by {@link #createSliceSelect(Class, String, Supplier, Pageable, Criteria)} into a {@link Slice}.
+     *
+     * @param rows the entities of the page, and possibly the first entity of the next page.
+     * @param pageable page parameter.
+     * @param <T> the type of the entity.
+     * @return the slice with the entities of the page.
      */
-    public String createSelect(SelectFromAndJoin selectFrom, Class<?> entityType, Pageable pageable) {
-        if (pageable != null) {
-            return createSelectImpl(selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()), entityType, pageable.getSort());
+    public static <T> Slice<T> toSlice(List<T> rows, Pageable pageable) {
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    private PreparedSelect createSelect(
+        Class<?> entityType,
+        String selectName,
+        Supplier<? extends SelectWhere> selectFrom,
+        Pageable pageable,
+        Criteria criteria,
+        int extraRows,
+        boolean withTotal
+    ) {
+        RelationalPersistentEntity<?> entity = getPersistentEntity(entityType);
+        Table table = Table.create(entity.getTableName()).as(EntityManager.ENTITY_ALIAS);
+        Sort sort = pageable != null ? pageable.getSort() : Sort.unsorted();
+        boolean paged = pageable != null && pageable.isPaged();
+        boolean filtered = criteria != null && !criteria.isEmpty();
+
+        // the bind markers must be created in the order of their appearance: where clause first, then the limit clause
+        BindMarkers bindMarkers = dataAccessStrategy.getBindMarkersFactory().create();
+        BoundCondition condition = filtered ? updateMapper.getMappedObject(bindMarkers, criteria, table, entity) : null;
+        Map<BindMarker, Object> values = new LinkedHashMap<>();
+        String limitClause = paged
+            ? createLimitClause(bindMarkers, pageable.getPageSize() + extraRows, pageable.getOffset(), values)
+            : null;
+
+        SelectKey key = new SelectKey(entityType, selectName, sort, filtered ? criteriaShape(criteria) : "", paged, withTotal);
+        String sql = selectTemplates.get(key);
+        if (sql != null) {
+            templateCacheHits.increment();
         } else {
-            return createSelectImpl(selectFrom, entityType, null);
+            templateCacheMisses.increment();
+            sql = renderSelect(selectFrom.get(), table, entity, sort, condition != null ? condition.getCondition() : null);
+            if (withTotal) {
+                sql = TOTAL_COUNT_COLUMN + sql.substring(SELECT_KEYWORD.length());
+            }
+            if (limitClause != null) {
+                sql = sql + " " + limitClause;
+            }
+            if (selectTemplates.size() < MAX_CACHED_TEMPLATES) {
+                selectTemplates.putIfAbsent(key, sql);
+            }
         }
+        return new PreparedSelect(sql, condition != null ? condition.getBindings() : null, values);
     }
 
     /**
-     * Creates an SQL select statement from the given fragment and pagination parameters.
-     * @param selectFrom a representation of a select statement.
+     * Selects a page of entities together with the total number of matching entities.
+     * <p>
+     * If the total is in the {@link EntityCountCache}, only the page is selected. Otherwise the total is selected in the same
+     * statement with {@code COUNT(*) OVER ()} and stored in the cache. Databases without window functions get the total from
+     * a separate count query.
+     *
      * @param entityType the entity type which holds the table name.
-     * @param pageable page parameter, or null, if everything needs to be returned
-     * @return sql select statement
+     * @param selectName identifies the columns and joins produced by {@code selectFrom}, it's part of the template cache key.
+     * @param selectFrom creates the representation of the select statement, only called when the template is not cached yet.
+     * @param pageable page parameter.
+     * @param criteria the criteria which is rendered as a where clause with bind markers, or null, if everything needs to be returned
+     * @param mapper converts a row into an entity.
+     * @param <T> the type of the entity.
+     * @return the page with the total number of entities.
      */
-    public String createSelect(SelectFromAndJoinCondition selectFrom, Class<?> entityType, Pageable pageable) {
-        if (pageable != null) {
-            return createSelectImpl(selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()), entityType, pageable.getSort());
-        } else {
-            return createSelectImpl(selectFrom, entityType, null);
+    public <T> Mono<Page<T>> findPage(
+        Class<?> entityType,
+        String selectName,
+        Supplier<? extends SelectWhere> selectFrom,
+        Pageable pageable,
+        @Nullable Criteria criteria,
+        BiFunction<Row, RowMetadata, T> mapper
+    ) {
+        Criteria where = criteria != null && !criteria.isEmpty() ? criteria : null;
+        String filter = where != null ? criteriaFilter(where) : "";
+        Long cachedTotal = countCache.getIfPresent(entityType, filter);
+        if (cachedTotal != null) {
+            return query(createSelect(entityType, selectName, selectFrom, pageable, where), mapper)
+                .collectList()
+                .<Page<T>>map(content -> new PageImpl<>(content, pageable, cachedTotal));
         }
+        return windowFunctionsSupported.<Page<T>>flatMap(
+            supported -> {
+                if (!supported) {
+                    return count(entityType, where)
+                        .zipWith(query(createSelect(entityType, selectName, selectFrom, pageable, where), mapper).collectList())
+                        .map(countWithEntities -> new PageImpl<>(countWithEntities.getT2(), pageable, countWithEntities.getT1()));
+                }
+                PreparedSelect select = createSelect(entityType, selectName, selectFrom, pageable, where, 0, true);
+                // a change during the query means the selected total may already be stale
+                long generation = countCache.currentGeneration(entityType);
+                return query(select, (row, metadata) -> Tuples.of(mapper.apply(row, metadata), ((Number) row.get(TOTAL_COUNT)).longValue()))
+                    .collectList()
+                    .flatMap(
+                        rows -> {
+                            if (rows.isEmpty() && pageable.isPaged() && pageable.getOffset() > 0) {
+                                // the page is after the last row, so the rows don't tell the total
+                                return count(entityType, where).map(total -> new PageImpl<T>(Collections.emptyList(), pageable, total));
+                            }
+                            long total = rows.isEmpty() ? 0 : rows.get(0).getT2();
+                            List<T> content = rows.stream().map(Tuple2::getT1).collect(Collectors.toList());
+                            return countCache
+                                .put(entityType, filter, generation, total, () -> countNow(entityType, where))
+                                .thenReturn(new PageImpl<>(content, pageable, total));
+                        }
+                    );
+            }
+        );
     }
 
-    private String createSelectImpl(SelectOrdered selectFrom, Class<?> entityType, Sort sortParameter) {
+    /**
+     * Runs a select statement, the result is served from the {@link QueryResultCache} when the caller is annotated with
+     * {@link CachedQuery}.
+     * @param select the select statement with its bound values.
+     * @param mapper converts a row into an entity.
+     * @param <T> the type of the entity.
+     * @return the entities.
+     */
+    public <T> Flux<T> query(PreparedSelect select, BiFunction<Row, RowMetadata, T> mapper) {
+        return queryCache
+            .isEnabled()
+            .flatMapMany(
+                enabled -> {
+                    if (!enabled) {
+                        return db.execute(select).map(mapper).all();
+                    }
+                    return queryCache.query(select.sql, select.boundValues(), mapper, copying -> db.execute(select).map(copying).all());
+                }
+            );
+    }
+
+    private String renderSelect(
+        SelectWhere selectFrom,
+        Table table,
+        RelationalPersistentEntity<?> entity,
+        Sort sortParameter,
+        @Nullable Condition where
+    ) {
+        SelectOrdered selectWhere = where != null ? selectFrom.where(where) : selectFrom;
         final Select select;
-        if (sortParameter != null && sortParameter.isSorted()) {
-            RelationalPersistentEntity<?> entity = getPersistentEntity(entityType);
+        if (sortParameter.isSorted()) {
             Sort sort = updateMapper.getMappedObject(sortParameter, entity);
-            select =
-                selectFrom.orderBy(createOrderByFields(Table.create(entity.getTableName()).as(EntityManager.ENTITY_ALIAS), sort)).build();
+            select = selectWhere.orderBy(createOrderByFields(table, sort)).build();
         } else {
-            select = selectFrom.build();
+            select = selectWhere.build();
         }
         return createSelect(select);
     }
 
+    private String createLimitClause(BindMarkers bindMarkers, long limit, long offset, Map<BindMarker, Object> values) {
+        BindMarker first = bindMarkers.next();
+        BindMarker second = bindMarkers.next();
+        BindMarker limitMarker = limitBeforeOffset ? first : second;
+        BindMarker offsetMarker = limitBeforeOffset ? second : first;
+        values.put(first, limitBeforeOffset ? limit : offset);
+        values.put(second, limitBeforeOffset ? offset : limit);
+        return limitClauseTemplate
+            .replace(Long.toString(LIMIT_PROBE), limitMarker.getPlaceholder())
+            .replace(Long.toString(OFFSET_PROBE), offsetMarker.getPlaceholder());
+    }
+
+    /**
+     * Describes everything of the criteria which influences the rendered where clause - the columns, operators,
+     * combinators and the number of values for the collection based operators - but not the values themselves.
+     */
+    private static String criteriaShape(CriteriaDefinition criteria) {
+        StringBuilder shape = new StringBuilder();
+        appendCriteria(criteria, shape, false);
+        return shape.toString();
+    }
+
+    /**
+     * Describes the criteria including its values, two criteria with the same description select the same rows.
+     */
+    private static String criteriaFilter(CriteriaDefinition criteria) {
+        StringBuilder filter = new StringBuilder();
+        appendCriteria(criteria, filter, true);
+        return filter.toString();
+    }
+
+    private static void appendCriteria(CriteriaDefinition criteria, StringBuilder shape, boolean withValues) {
+        if (criteria.hasPrevious()) {
+            appendCriteria(criteria.getPrevious(), shape, withValues);
+            shape.append(' ').append(criteria.getCombinator()).append(' ');
+        }
+        if (criteria.isGroup()) {
+            shape.append('(');
+            for (CriteriaDefinition part : criteria.getGroup()) {
+                appendCriteria(part, shape, withValues);
+            }
+            shape.append(')');
+        } else if (!criteria.isEmpty()) {
+            shape.append(criteria.getColumn()).append(' ').append(criteria.getComparator());
+            if (criteria.isIgnoreCase()) {
+                shape.append(" ignoreCase");
+            }
+            Object value = criteria.getValue();
+            if (value == null) {
+                shape.append(" null");
+            } else if (withValues) {
+                shape.append(" '").append(value).append('\'');
+            } else if (value instanceof Collection) {
+                shape.append(" [").append(((Collection<?>) value).size()).append(']');
+            }
+        }
+    }
+
+    private static Class<?> columnType(RelationalPersistentEntity<?> entity, String column) {
+        for (RelationalPersistentProperty property : entity) {
+            if (property.getColumnName().getReference(IdentifierProcessing.NONE).equalsIgnoreCase(column)) {
+                return property.getType();
+            }
+        }
+        throw new IllegalArgumentException("No column " + column + " in " + entity.getTableName());
+    }
+
     private RelationalPersistentEntity<?> getPersistentEntity(Class<?> entityType) {
         return (RelationalPersistentEntity<?>) dataAccessStrategy.getConverter().getMappingContext().getPersistentEntity(entityType);
     }
 
+    private String tableName(Class<?> entityType) {
+        return getPersistentEntity(entityType).getTableName().getReference(IdentifierProcessing.NONE);
+    }
+
     /**
      * Delete all the entity with the given type, and return the number of deletions.
      * @param entityType the entity type which holds the table name.
      * @return the number of deleted entity
      */
     public Mono<Integer> deleteAll(Class<?> entityType) {
-        return db.delete().from(entityType).fetch().rowsUpdated();
+        return db
+            .delete()
+            .from(entityType)
+            .fetch()
+            .rowsUpdated()
+            .flatMap(
+                deleted ->
+                    countCache
+                        .invalidate(entityType)
+                        .then(entityCache.evictAll(entityType))
+                        .then(queryCache.invalidate(tableName(entityType)))
+                        .thenReturn(deleted)
+            );
     }
 
     /**
@@ -134,7 +615,109 @@ public class EntityManager {
      * @return the number of deleted rows.
      */
     public Mono<Integer> deleteAll(String tableName) {
-        return db.delete().from(tableName).fetch().rowsUpdated();
+        return db
+            .delete()
+            .from(tableName)
+            .fetch()
+            .rowsUpdated()
+            .doOnNext(deleted -> entityCache.clear())
+            .flatMap(deleted -> countCache.invalidateAll().then(queryCache.invalidate(tableName)).thenReturn(deleted));
+    }
+
+    /**
+     * Deletes the entity with the given id.
+     * @param entityType the type of the entity.
+     * @param id the id of the entity.
+     * @return the number of deleted rows.
+     */
+    public Mono<Integer> delete(Class<?> entityType, Object id) {
+        Assert.notNull(id, "id is null");
+        RelationalPersistentEntity<?> entity = getPersistentEntity(entityType);
+        return db
+            .delete()
+            .from(entityType)
+            .matching(Criteria.where(entity.getRequiredIdProperty().getName()).is(id))
+            .fetch()
+            .rowsUpdated()
+            .flatMap(
+                deleted ->
+                    countCache
+                        .recordDelete(entityType, deleted)
+                        .then(queryCache.invalidate(tableName(entityType)))
+                        .thenReturn(deleted)
+            );
+    }
+
+    /**
+     * Updates only the given columns of an entity, the other columns are left as they are.
+     * @param entityType the type of the entity.
+     * @param id the id of the entity.
+     * @param columns the new values, by column name, a {@code null} value clears the column.
+     * @return the number of updated rows, 0 if there is no entity with this id.
+     */
+    public Mono<Integer> updateColumns(Class<?> entityType, Object id, Map<String, Object> columns) {
+        Assert.notNull(id, "id is null");
+        RelationalPersistentEntity<?> entity = getPersistentEntity(entityType);
+        String tableName = entity.getTableName().toSql(identifierProcessing);
+        String where = " WHERE " + entity.getIdColumn().toSql(identifierProcessing) + " = :id";
+        if (columns.isEmpty()) {
+            // nothing to write, but the caller still needs to know whether the entity exists
+            return db
+                .execute("SELECT COUNT(*) FROM " + tableName + where)
+                .bind("id", id)
+                .map(row -> row.get(0, Long.class).intValue())
+                .one();
+        }
+        StringBuilder sql = new StringBuilder("UPDATE ").append(tableName).append(" SET ");
+        int i = 0;
+        for (String column : columns.keySet()) {
+            String columnName = SqlIdentifier.unquoted(column).toSql(identifierProcessing);
+            sql.append(i > 0 ? ", " : "").append(columnName).append(" = :value").append(i++);
+        }
+        GenericExecuteSpec spec = db.execute(sql.append(where).toString()).bind("id", id);
+        i = 0;
+        for (Entry<String, Object> column : columns.entrySet()) {
+            Object value = column.getValue();
+            if (value == null) {
+                spec = spec.bindNull("value" + i++, columnType(entity, column.getKey()));
+                continue;
+            }
+            // the same conversions as for the mapped entities, e.g. Instant to LocalDateTime
+            Object converted = dataAccessStrategy.getConverter().writeValue(value, ClassTypeInformation.from(value.getClass()));
+            spec = spec.bind("value" + i++, converted);
+        }
+        return spec
+            .fetch()
+            .rowsUpdated()
+            .flatMap(
+                updated -> countCache.recordUpdate(entityType).then(queryCache.invalidate(tableName(entityType))).thenReturn(updated)
+            );
+    }
+
+    /**
+     * Counts the entities matching the criteria, the result is served from the {@link EntityCountCache} once it's loaded.
+     * @param entityType the type of the entity.
+     * @param criteria the filter, or null, if all the rows are counted.
+     * @return the number of matching rows.
+     */
+    public Mono<Long> count(Class<?> entityType, @Nullable Criteria criteria) {
+        boolean filtered = criteria != null && !criteria.isEmpty();
+        String filter = filtered ? criteriaFilter(criteria) : "";
+        return countCache.count(entityType, filter, () -> countNow(entityType, filtered ? criteria : null));
+    }
+
+    private Mono<Long> countNow(Class<?> entityType, @Nullable Criteria criteria) {
+        RelationalPersistentEntity<?> entity = getPersistentEntity(entityType);
+        Table table = Table.create(entity.getTableName()).as(EntityManager.ENTITY_ALIAS);
+        SelectWhere selectFrom = Select.builder().select(Functions.count(Expressions.asterisk())).from(table);
+        BoundCondition condition = null;
+        if (criteria != null) {
+            BindMarkers bindMarkers = dataAccessStrategy.getBindMarkersFactory().create();
+            condition = updateMapper.getMappedObject(bindMarkers, criteria, table, entity);
+        }
+        String sql = createSelect(condition != null ? selectFrom.where(condition.getCondition()).build() : selectFrom.build());
+        PreparedSelect select = new PreparedSelect(sql, condition != null ? condition.getBindings() : null, Collections.emptyMap());
+        return db.execute(select).map(row -> row.get(0, Long.class)).one();
     }
 
     /**
@@ -148,12 +731,17 @@ public class EntityManager {
 
     /**
      * Inserts the given entity into the database - and sets the id, if it's an autoincrement field.
+     * <p>
+     * The columns are given by the entity's row mapper, so no per-write mapping of the entity is needed.
      * @param <S> the type of the persisted entity.
+     * @param <ID> the type of the id.
      * @param entity the entity to be inserted into the database.
+     * @param row the column values of the entity, an empty id lets the database generate it.
+     * @param idType the type of the id.
+     * @param idSetter sets the generated id on the entity.
      * @return the persisted entity.
      */
-    public <S> Mono<S> insert(S entity) {
-        OutboundRow row = dataAccessStrategy.getOutboundRow(entity);
+    public <S, ID> Mono<S> insert(S entity, OutboundRow row, Class<ID> idType, BiConsumer<? super S, ID> idSetter) {
         RelationalPersistentEntity<?> persistentEntity = getPersistentEntity(entity.getClass());
 
         GenericInsertSpec<Map<String, Object>> insertSpec = db.insert().into(persistentEntity.getTableName());
@@ -163,39 +751,129 @@ public class EntityManager {
                 insertSpec = insertSpec.value(column.getKey(), column.getValue());
             }
         }
-        return insertSpec.map(dataAccessStrategy.getConverter().populateIdIfNecessary(entity)).first().defaultIfEmpty(entity);
+        SettableValue id = row.get(idColumn);
+        boolean generatedId = id == null || !id.hasValue();
+        String idColumnName = idColumn.getReference(identifierProcessing);
+        return insertSpec
+            .map(
+                (generated, metadata) -> {
+                    if (generatedId) {
+                        idSetter.accept(entity, generated.get(idColumnName, idType));
+                    }
+                    return entity;
+                }
+            )
+            .first()
+            .defaultIfEmpty(entity)
+            .flatMap(
+                saved ->
+                    countCache
+                        .recordInsert(entity.getClass())
+                        .then(queryCache.invalidate(tableName(entity.getClass())))
+                        .thenReturn(saved)
+            );
+    }
+
+    /**
+     * Inserts the links of a just created entity with the referred entities.
+     * <p>
+     * The entity can't have stored links yet, so they are inserted with a single multi-row insert, without reading the table first.
+     * @param table describes the link table, it contains a table name, the column name for the id, and for the referred entity id.
+     * @param entityId the id of the created entity.
+     * @param referencedIds the id of the referred entities.
+     * @return the number of inserted rows.
+     */
+    public Mono<Integer> insertLinkTable(LinkTable table, Long entityId, Stream<Long> referencedIds) {
+        Assert.notNull(entityId, "entityId is null");
+        List<Long> wanted = referencedIds.filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (wanted.isEmpty()) {
+            return Mono.just(0);
+        }
+        return insertLinks(table, entityId, wanted).flatMap(inserted -> queryCache.invalidate(table.tableName).thenReturn(inserted));
     }
 
     /**
      * Updates the table, which links the entity with the referred entities.
+     * <p>
+     * The stored links are not read: the links which are no longer wanted are deleted with one statement, and the missing links
+     * are inserted with one statement that skips the existing ones, so unchanged links cause no writes, and a concurrent save of
+     * the same links doesn't fail on the duplicate keys.
      * @param table describes the link table, it contains a table name, the column name for the id, and for the referred entity id.
      * @param entityId the id of the entity, for which the links are created.
      * @param referencedIds the id of the referred entities.
      * @return the number of inserted rows.
      */
     public Mono<Integer> updateLinkTable(LinkTable table, Long entityId, Stream<Long> referencedIds) {
-        return deleteFromLinkTable(table, entityId)
-            .then(
-                Flux
-                    .fromStream(referencedIds)
-                    .flatMap(
-                        (Long referenceId) ->
-                            db
-                                .insert()
-                                .into(table.tableName)
-                                .value(table.idColumn, entityId)
-                                .value(table.referenceColumn, referenceId)
-                                .fetch()
-                                .rowsUpdated()
-                    )
-                    .collectList()
-                    .map((List<Integer> updates) -> updates.stream().reduce(Integer::sum).orElse(0))
-            );
+        Assert.notNull(entityId, "entityId is null");
+        List<Long> wanted = referencedIds.filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        return deleteOtherLinks(table, entityId, wanted)
+            .then(insertMissingLinks(table, entityId, wanted))
+            .flatMap(inserted -> queryCache.invalidate(table.tableName).thenReturn(inserted));
+    }
+
+    private Mono<Integer> deleteOtherLinks(LinkTable table, Long entityId, List<Long> keptIds) {
+        Criteria criteria = Criteria.where(table.idColumn).is(entityId);
+        if (!keptIds.isEmpty()) {
+            criteria = criteria.and(table.referenceColumn).notIn(keptIds);
+        }
+        return db.delete().from(table.tableName).matching(criteria).fetch().rowsUpdated();
+    }
+
+    private Mono<Integer> insertLinks(LinkTable table, Long entityId, List<Long> referencedIds) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ")
+            .append(table.tableName)
+            .append(" (")
+            .append(table.idColumn)
+            .append(", ")
+            .append(table.referenceColumn)
+            .append(") VALUES ");
+        for (int i = 0; i < referencedIds.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(:entityId, :referenceId").append(i).append(')');
+        }
+        return bindReferences(db.execute(sql.toString()).bind("entityId", entityId), referencedIds).fetch().rowsUpdated();
+    }
+
+    private Mono<Integer> insertMissingLinks(LinkTable table, Long entityId, List<Long> referencedIds) {
+        if (referencedIds.isEmpty()) {
+            return Mono.just(0);
+        }
+        // INSERT ... SELECT ... WHERE NOT EXISTS, as the databases don't share a syntax to ignore the existing rows
+        StringBuilder sql = new StringBuilder("INSERT INTO ")
+            .append(table.tableName)
+            .append(" (")
+            .append(table.idColumn)
+            .append(", ")
+            .append(table.referenceColumn)
+            .append(") SELECT :entityId, wanted.id FROM (");
+        for (int i = 0; i < referencedIds.size(); i++) {
+            sql.append(i == 0 ? "SELECT " : " UNION ALL SELECT ").append(":referenceId").append(i).append(i == 0 ? " AS id" : "");
+        }
+        sql
+            .append(") wanted WHERE NOT EXISTS (SELECT 1 FROM ")
+            .append(table.tableName)
+            .append(" link WHERE link.")
+            .append(table.idColumn)
+            .append(" = :entityId AND link.")
+            .append(table.referenceColumn)
+            .append(" = wanted.id)");
+        return bindReferences(db.execute(sql.toString()).bind("entityId", entityId), referencedIds).fetch().rowsUpdated();
+    }
+
+    private static GenericExecuteSpec bindReferences(GenericExecuteSpec spec, List<Long> referencedIds) {
+        for (int i = 0; i < referencedIds.size(); i++) {
+            spec = spec.bind("referenceId" + i, referencedIds.get(i));
+        }
+        return spec;
     }
 
     public Mono<Void> deleteFromLinkTable(LinkTable table, Long entityId) {
         Assert.notNull(entityId, "entityId is null");
-        return db.delete().from(table.tableName).matching(Criteria.from(Criteria.where(table.idColumn).is(entityId))).then();
+        return db
+            .delete()
+            .from(table.tableName)
+            .matching(Criteria.from(Criteria.where(table.idColumn).is(entityId)))
+            .then()
+            .then(queryCache.invalidate(table.tableName));
     }
 
     private static Collection<? extends OrderByField> createOrderByFields(Table table, Sort sortToUse) {
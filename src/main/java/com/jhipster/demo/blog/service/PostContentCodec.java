@@ -0,0 +1,214 @@
+package com.jhipster.demo.blog.service;
+
+import com.jhipster.demo.blog.config.ApplicationProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.springframework.stereotype.Service;
+
+/**
+ * Encodes the content of the posts to the binary form stored in {@code post_content.body_data}, and decodes it back.
+ * <p>
+ * The stored value starts with a header: the {@code 'P' 'C'} magic bytes, the format version, the codec and the length of the
+ * UTF-8 encoded content, followed by the content, either Deflate (zlib) compressed or as is, when compressing would not
+ * make it smaller.
+ */
+@Service
+public class PostContentCodec {
+
+    static final int HEADER_LENGTH = 8;
+
+    private static final byte MAGIC_0 = 'P';
+    private static final byte MAGIC_1 = 'C';
+    private static final byte VERSION = 1;
+
+    static final byte CODEC_NONE = 0;
+    static final byte CODEC_DEFLATE = 1;
+
+    private final ApplicationProperties.PostContentCompression properties;
+
+    private final DistributionSummary originalSize;
+    private final DistributionSummary storedSize;
+    private final Timer encodeTimer;
+    private final Timer decodeTimer;
+
+    public PostContentCodec(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getPostContentCompression();
+        this.originalSize = sizeSummary("original", meterRegistry);
+        this.storedSize = sizeSummary("stored", meterRegistry);
+        this.encodeTimer = codecTimer("encode", meterRegistry);
+        this.decodeTimer = codecTimer("decode", meterRegistry);
+    }
+
+    private static DistributionSummary sizeSummary(String form, MeterRegistry meterRegistry) {
+        return DistributionSummary
+            .builder("post.content.size")
+            .description("Size of the post contents written to the database")
+            .baseUnit("bytes")
+            .tag("form", form)
+            .register(meterRegistry);
+    }
+
+    private static Timer codecTimer(String operation, MeterRegistry meterRegistry) {
+        return Timer
+            .builder("post.content.codec")
+            .description("Time spent compressing and decompressing post contents")
+            .tag("operation", operation)
+            .register(meterRegistry);
+    }
+
+    /**
+     * @return whether new contents are stored compressed.
+     */
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Encodes the content, compressed if that makes it smaller.
+     *
+     * @param content the content of a post.
+     * @return the value to store.
+     */
+    public byte[] encode(String content) {
+        return encodeTimer.record(
+            () -> {
+                byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+                byte[] compressed = deflate(raw);
+                byte[] encoded = compressed.length < raw.length
+                    ? withHeader(CODEC_DEFLATE, raw.length, compressed)
+                    : withHeader(CODEC_NONE, raw.length, raw);
+                originalSize.record(raw.length);
+                storedSize.record(encoded.length);
+                return encoded;
+            }
+        );
+    }
+
+    /**
+     * Decodes a stored value.
+     *
+     * @param data the value written by {@link #encode(String)}.
+     * @return the content of the post.
+     * @throws IllegalArgumentException if the value is not a valid encoded content.
+     */
+    public String decode(byte[] data) {
+        return decodeTimer.record(
+            () -> {
+                int length = readHeader(data);
+                if (data[3] == CODEC_NONE) {
+                    return new String(data, HEADER_LENGTH, length, StandardCharsets.UTF_8);
+                }
+                byte[] raw = new byte[length];
+                Inflater inflater = new Inflater();
+                try {
+                    inflater.setInput(data, HEADER_LENGTH, data.length - HEADER_LENGTH);
+                    int read = 0;
+                    while (read < length && !inflater.finished()) {
+                        int inflated = inflater.inflate(raw, read, length - read);
+                        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                            throw new IllegalArgumentException("Truncated post content");
+                        }
+                        read += inflated;
+                    }
+                } catch (DataFormatException e) {
+                    throw new IllegalArgumentException("Corrupted post content", e);
+                } finally {
+                    inflater.end();
+                }
+                return new String(raw, StandardCharsets.UTF_8);
+            }
+        );
+    }
+
+    /**
+     * Decodes the beginning of the content out of the beginning of a stored value, without decompressing the rest.
+     *
+     * @param data the stored value, or its first bytes.
+     * @param maxLength the maximum number of characters to return.
+     * @return the first characters of the content, as many as the given bytes contain, up to {@code maxLength}.
+     */
+    public String decodePrefix(byte[] data, int maxLength) {
+        int length = readHeader(data);
+        if (data[3] == CODEC_NONE) {
+            return decodeUtf8(ByteBuffer.wrap(data, HEADER_LENGTH, Math.min(length, data.length - HEADER_LENGTH)), maxLength);
+        }
+        // a character takes at most 4 bytes in UTF-8
+        byte[] raw = new byte[(int) Math.min(length, maxLength * 4L)];
+        int rawLength = 0;
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, HEADER_LENGTH, data.length - HEADER_LENGTH);
+            while (rawLength < raw.length && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, rawLength, raw.length - rawLength);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                rawLength += inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupted post content", e);
+        } finally {
+            inflater.end();
+        }
+        return decodeUtf8(ByteBuffer.wrap(raw, 0, rawLength), maxLength);
+    }
+
+    private static String decodeUtf8(ByteBuffer bytes, int maxLength) {
+        CharsetDecoder decoder = StandardCharsets.UTF_8
+            .newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(maxLength);
+        // not the end of the input, so a character cut in the middle is left out instead of being replaced
+        decoder.decode(bytes, chars, false);
+        return chars.flip().toString();
+    }
+
+    private byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(properties.getLevel());
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] withHeader(byte codec, int length, byte[] payload) {
+        return ByteBuffer
+            .allocate(HEADER_LENGTH + payload.length)
+            .put(MAGIC_0)
+            .put(MAGIC_1)
+            .put(VERSION)
+            .put(codec)
+            .putInt(length)
+            .put(payload)
+            .array();
+    }
+
+    private static int readHeader(byte[] data) {
+        if (data.length < HEADER_LENGTH || data[0] != MAGIC_0 || data[1] != MAGIC_1) {
+            throw new IllegalArgumentException("Not an encoded post content");
+        }
+        if (data[2] != VERSION || (data[3] != CODEC_NONE && data[3] != CODEC_DEFLATE)) {
+            throw new IllegalArgumentException("Unsupported post content format " + data[2] + "/" + data[3]);
+        }
+        return ByteBuffer.wrap(data, 4, 4).getInt();
+    }
+}
@@ -0,0 +1,188 @@
+package com.jhipster.demo.blog.service;
+
+import com.jhipster.demo.blog.config.ApplicationProperties;
+import java.util.List;
+import java.util.function.Function;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+/**
+ * Moves the content of the posts created before the {@code post_content} table existed from {@code post.content} to
+ * {@code post_content.body}.
+ * <p>
+ * The rows are copied in small chunks, in primary key order, each chunk with its own short statements, so the {@code post}
+ * table is never locked as a whole and the application keeps serving requests meanwhile. The copy is idempotent: a post
+ * whose content was already written to {@code post_content} by the application is left alone, and an interrupted migration
+ * resumes from the first row which still has its content in {@code post}.
+ * <p>
+ * When the compression of the content is enabled, the contents stored as text in {@code post_content.body} are then encoded
+ * by {@link PostContentCodec} to {@code post_content.body_data} in the same way.
+ */
+@Service
+public class PostContentMigrationService {
+
+    private final Logger log = LoggerFactory.getLogger(PostContentMigrationService.class);
+
+    private final DatabaseClient db;
+
+    private final ColumnConverter converter;
+
+    private final PostContentCodec contentCodec;
+
+    private final ApplicationProperties.PostContentMigration properties;
+
+    private Disposable migration;
+
+    public PostContentMigrationService(
+        DatabaseClient db,
+        ColumnConverter converter,
+        PostContentCodec contentCodec,
+        ApplicationProperties applicationProperties
+    ) {
+        this.db = db;
+        this.converter = converter;
+        this.contentCodec = contentCodec;
+        this.properties = applicationProperties.getPostContentMigration();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startMigration() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        migration =
+            migrate()
+                .doOnNext(
+                    migrated -> {
+                        if (migrated > 0) {
+                            log.info("Moved the content of {} posts to post_content", migrated);
+                        }
+                    }
+                )
+                .then(contentCodec.isEnabled() ? compress() : Mono.just(0L))
+                .subscribe(
+                    compressed -> {
+                        if (compressed > 0) {
+                            log.info("Compressed the content of {} posts", compressed);
+                        }
+                    },
+                    e -> log.warn("Migrating the content of the posts failed, it will be resumed on the next start", e)
+                );
+    }
+
+    @PreDestroy
+    public void stopMigration() {
+        if (migration != null) {
+            migration.dispose();
+        }
+    }
+
+    /**
+     * Migrates all the posts still having their content in the {@code post} table.
+     *
+     * @return the number of migrated posts.
+     */
+    public Mono<Long> migrate() {
+        return inChunks(this::migrateChunkAfter);
+    }
+
+    /**
+     * Encodes all the contents still stored as text in {@code post_content}.
+     *
+     * @return the number of encoded contents.
+     */
+    public Mono<Long> compress() {
+        return inChunks(this::compressChunkAfter);
+    }
+
+    /**
+     * Runs the chunks one after the other, with a pause in between.
+     *
+     * @param chunkAfter migrates the chunk after the given id, and returns its last id and the number of migrated rows,
+     * or nothing when there are no rows left.
+     */
+    private Mono<Long> inChunks(Function<Long, Mono<Tuple2<Long, Integer>>> chunkAfter) {
+        return chunkAfter
+            .apply(0L)
+            .expand(chunk -> Mono.delay(properties.getPause()).then(chunkAfter.apply(chunk.getT1())))
+            .reduce(0L, (total, chunk) -> total + chunk.getT2());
+    }
+
+    /**
+     * @return the last id and the number of migrated posts of the chunk, or empty if there are no posts left to migrate.
+     */
+    private Mono<Tuple2<Long, Integer>> migrateChunkAfter(long afterId) {
+        return db
+            .execute("SELECT id FROM post WHERE content IS NOT NULL AND id > :afterId ORDER BY id LIMIT " + properties.getChunkSize())
+            .bind("afterId", afterId)
+            .map((row, metadata) -> row.get("id", Long.class))
+            .all()
+            .collectList()
+            .filter(ids -> !ids.isEmpty())
+            .flatMap(ids -> migrateChunk(ids).map(migrated -> Tuples.of(ids.get(ids.size() - 1), migrated)));
+    }
+
+    private Mono<Integer> migrateChunk(List<Long> ids) {
+        Mono<Integer> copy = db
+            .execute(
+                "INSERT INTO post_content (post_id, body) SELECT p.id, p.content FROM post p" +
+                " WHERE p.id IN (:ids) AND p.content IS NOT NULL" +
+                " AND NOT EXISTS (SELECT 1 FROM post_content c WHERE c.post_id = p.id)"
+            )
+            .bind("ids", ids)
+            .fetch()
+            .rowsUpdated();
+        Mono<Integer> clear = db
+            .execute(
+                "UPDATE post SET content = NULL WHERE id IN (:ids)" +
+                " AND EXISTS (SELECT 1 FROM post_content c WHERE c.post_id = post.id)"
+            )
+            .bind("ids", ids)
+            .fetch()
+            .rowsUpdated();
+        return copy.then(clear);
+    }
+
+    private Mono<Tuple2<Long, Integer>> compressChunkAfter(long afterId) {
+        return db
+            .execute(
+                "SELECT post_id, body FROM post_content WHERE body IS NOT NULL AND post_id > :afterId ORDER BY post_id LIMIT " +
+                properties.getChunkSize()
+            )
+            .bind("afterId", afterId)
+            .map((row, metadata) -> Tuples.of(row.get("post_id", Long.class), converter.fromRow(row, metadata, "body", String.class)))
+            .all()
+            .collectList()
+            .filter(rows -> !rows.isEmpty())
+            .flatMap(
+                rows ->
+                    Flux
+                        .fromIterable(rows)
+                        .concatMap(
+                            idAndBody ->
+                                db
+                                    // a content written meanwhile by the application is left alone
+                                    .execute(
+                                        "UPDATE post_content SET body_data = :bodyData, body = NULL" +
+                                        " WHERE post_id = :postId AND body IS NOT NULL"
+                                    )
+                                    .bind("bodyData", contentCodec.encode(idAndBody.getT2()))
+                                    .bind("postId", idAndBody.getT1())
+                                    .fetch()
+                                    .rowsUpdated()
+                        )
+                        .reduce(0, Integer::sum)
+                        .map(compressed -> Tuples.of(rows.get(rows.size() - 1).getT1(), compressed))
+            );
+    }
+}
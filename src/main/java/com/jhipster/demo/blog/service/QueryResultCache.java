@@ -0,0 +1,305 @@
+package com.jhipster.demo.blog.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jhipster.demo.blog.config.ApplicationProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+/**
+ * Keeps the results of the select statements, keyed by their SQL and bound values, so that running the same query again
+ * doesn't hit the database.
+ * <p>
+ * Only the queries run within a repository method annotated with {@link CachedQuery} are cached. A cached result remembers
+ * the tables its query reads, and any write to one of these tables drops it. Like for the {@link EntityCache}, an
+ * invalidation is applied right away and again when the current transaction completes, the read-write transactions bypass
+ * the cache, and the invalidations are published on the {@link CacheInvalidationBus}, with the table name as key. When the
+ * reads go to replicas, a result loaded within the read-your-writes window after one of its tables was written is returned but
+ * not cached, as the replica may not have the write yet.
+ * <p>
+ * The rows are cached as copies of their column values, which are mapped again for every reader, so the readers never share
+ * an entity. The cache is bounded by the estimated size of these values.
+ */
+@Service
+public class QueryResultCache {
+
+    /**
+     * The context key enabling the cache for the queries of a reactive pipeline.
+     */
+    public static final String ENABLED = QueryResultCache.class.getName() + ".ENABLED";
+
+    static final String CACHE_NAME = "query";
+
+    private static final Pattern TABLE_REFERENCE = Pattern.compile(
+        "\\b(?:FROM|JOIN)\\s+[\"`]?([A-Za-z_][A-Za-z0-9_]*)[\"`]?",
+        Pattern.CASE_INSENSITIVE
+    );
+    private static final int MAX_KNOWN_STATEMENTS = 1024;
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final CacheInvalidationBus invalidationBus;
+    private final Cache<QueryKey, Result> results;
+    private final Map<String, AtomicLong> tableGenerations = new ConcurrentHashMap<>();
+    private final Map<String, Long> tableInvalidations = new ConcurrentHashMap<>();
+    private final long staleReadWindowNanos;
+    private volatile long clearedAt;
+    private final Map<String, Set<String>> tablesBySql = new ConcurrentHashMap<>();
+
+    public QueryResultCache(
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry,
+        CacheInvalidationBus invalidationBus
+    ) {
+        ApplicationProperties.QueryCache properties = applicationProperties.getQueryCache();
+        this.invalidationBus = invalidationBus;
+        this.staleReadWindowNanos = CacheTransactions.staleReadWindow(applicationProperties).toNanos();
+        this.clearedAt = System.nanoTime() - staleReadWindowNanos;
+        this.results =
+            Caffeine
+                .newBuilder()
+                .maximumWeight(properties.getMaximumSize().toBytes())
+                .weigher((QueryKey key, Result result) -> result.weight)
+                .expireAfterWrite(properties.getTimeToLive())
+                .recordStats()
+                .build();
+        invalidationBus.subscribe(CACHE_NAME, table -> invalidateNow((String) table));
+
+        Tags tags = Tags.of("kind", "query");
+        CaffeineCacheMetrics.monitor(meterRegistry, results, CACHE_NAME, tags);
+        Gauge
+            .builder("cache.hit.ratio", results, cache -> cache.stats().hitRate())
+            .description("Share of the queries served from the cache")
+            .tags(tags.and("cache", CACHE_NAME))
+            .register(meterRegistry);
+        Gauge
+            .builder(
+                "cache.weight",
+                results,
+                cache -> cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L)
+            )
+            .description("Estimated memory held by the cached query results")
+            .tags(tags.and("cache", CACHE_NAME))
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Tells whether the queries of the current pipeline are cached: they run within a {@link CachedQuery} method, and not
+     * within a read-write transaction.
+     *
+     * @return whether to use the cache.
+     */
+    public Mono<Boolean> isEnabled() {
+        return Mono
+            .subscriberContext()
+            .flatMap(context -> context.getOrDefault(ENABLED, false) ? CacheTransactions.isCacheable() : Mono.just(false));
+    }
+
+    /**
+     * Returns the cached result of a query, or runs it, if it's not cached yet.
+     * <p>
+     * On a miss, the entities are mapped from the rows of the database, which are copied at the same time for the cache.
+     *
+     * @param sql the SQL of the query.
+     * @param boundValues the values bound to the query.
+     * @param mapper converts a row into an entity.
+     * @param execute runs the query, and maps its rows with the given function.
+     * @param <T> the type of the entities.
+     * @return the entities.
+     */
+    <T> Flux<T> query(
+        String sql,
+        List<Object> boundValues,
+        BiFunction<Row, RowMetadata, T> mapper,
+        Function<BiFunction<Row, RowMetadata, Tuple2<T, CachedRow>>, Flux<Tuple2<T, CachedRow>>> execute
+    ) {
+        QueryKey key = new QueryKey(sql, boundValues);
+        Result cached = results.getIfPresent(key);
+        if (cached != null) {
+            return map(cached.rows, mapper);
+        }
+        Set<String> tables = tables(sql);
+        // a write during the load means the loaded rows may already be stale
+        long generation = generation(tables);
+        BiFunction<Row, RowMetadata, CachedRow> copier = CachedRow.copier();
+        return execute
+            .apply((row, metadata) -> Tuples.of(mapper.apply(row, metadata), copier.apply(row, metadata)))
+            .collectList()
+            .flatMapIterable(
+                rows -> {
+                    boolean current = generation(tables) == generation && !invalidatedRecently(tables);
+                    if (current && rows.stream().allMatch(row -> row.getT2().isCacheable())) {
+                        List<CachedRow> copies = rows.stream().map(Tuple2::getT2).collect(Collectors.toList());
+                        int weight = ENTRY_OVERHEAD + 2 * sql.length() + copies.stream().mapToInt(CachedRow::getWeight).sum();
+                        results.put(key, new Result(copies, tables, weight));
+                    }
+                    return rows.stream().map(Tuple2::getT1).collect(Collectors.toList());
+                }
+            );
+    }
+
+    private static <T> Flux<T> map(List<CachedRow> rows, BiFunction<Row, RowMetadata, T> mapper) {
+        return Flux.fromIterable(rows).map(row -> mapper.apply(row, row.getMetadata()));
+    }
+
+    /**
+     * Drops the results of the queries which read one of the given tables.
+     *
+     * @param tableNames the names of the written tables.
+     * @return completes once the invalidation is applied, and registered for the end of the current transaction.
+     */
+    public Mono<Void> invalidate(String... tableNames) {
+        return CacheTransactions.invalidate(
+            () -> Arrays.stream(tableNames).forEach(this::invalidateNow),
+            () ->
+                Arrays
+                    .stream(tableNames)
+                    .forEach(
+                        tableName -> {
+                            invalidateNow(tableName);
+                            invalidationBus.publish(CACHE_NAME, normalize(tableName));
+                        }
+                    )
+        );
+    }
+
+    /**
+     * Drops all the cached results right away, for a change which may affect any table.
+     */
+    public void clear() {
+        clearedAt = System.nanoTime();
+        tableGenerations.values().forEach(AtomicLong::incrementAndGet);
+        results.invalidateAll();
+    }
+
+    private void invalidateNow(@Nullable String tableName) {
+        if (tableName == null) {
+            clear();
+            return;
+        }
+        String table = normalize(tableName);
+        if (staleReadWindowNanos > 0) {
+            tableInvalidations.put(table, System.nanoTime());
+        }
+        tableGenerations.computeIfAbsent(table, name -> new AtomicLong()).incrementAndGet();
+        results.asMap().values().removeIf(result -> result.tables.contains(table));
+    }
+
+    /**
+     * Tells whether one of the tables was written within the stale read window, so that a query may have read it from a
+     * replica which is behind.
+     */
+    private boolean invalidatedRecently(Set<String> tables) {
+        if (staleReadWindowNanos == 0) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (now - clearedAt < staleReadWindowNanos) {
+            return true;
+        }
+        for (String table : tables) {
+            Long invalidatedAt = tableInvalidations.get(table);
+            if (invalidatedAt != null && now - invalidatedAt < staleReadWindowNanos) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long generation(Set<String> tables) {
+        // the generations only grow, so their sum changes whenever one of them does
+        long generation = 0;
+        for (String table : tables) {
+            generation += tableGenerations.computeIfAbsent(table, name -> new AtomicLong()).get();
+        }
+        return generation;
+    }
+
+    Set<String> tables(String sql) {
+        Set<String> tables = tablesBySql.get(sql);
+        if (tables != null) {
+            return tables;
+        }
+        tables = new TreeSet<>();
+        Matcher matcher = TABLE_REFERENCE.matcher(sql);
+        while (matcher.find()) {
+            tables.add(normalize(matcher.group(1)));
+        }
+        tables = Collections.unmodifiableSet(tables);
+        if (tablesBySql.size() < MAX_KNOWN_STATEMENTS) {
+            tablesBySql.put(sql, tables);
+        }
+        return tables;
+    }
+
+    private static String normalize(String tableName) {
+        return tableName.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class QueryKey {
+
+        private final String sql;
+        private final List<Object> boundValues;
+        private final int hashCode;
+
+        QueryKey(String sql, List<Object> boundValues) {
+            this.sql = sql;
+            this.boundValues = boundValues;
+            this.hashCode = 31 * sql.hashCode() + boundValues.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof QueryKey)) {
+                return false;
+            }
+            QueryKey other = (QueryKey) o;
+            return hashCode == other.hashCode && sql.equals(other.sql) && boundValues.equals(other.boundValues);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class Result {
+
+        private final List<CachedRow> rows;
+        private final Set<String> tables;
+        private final int weight;
+
+        Result(List<CachedRow> rows, Set<String> tables, int weight) {
+            this.rows = rows;
+            this.tables = tables;
+            this.weight = weight;
+        }
+    }
+}
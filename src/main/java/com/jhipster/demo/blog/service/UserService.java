@@ -3,7 +3,6 @@ package com.jhipster.demo.blog.service;
 import com.jhipster.demo.blog.config.Constants;
 import com.jhipster.demo.blog.domain.Authority;
 import com.jhipster.demo.blog.domain.User;
-import com.jhipster.demo.blog.repository.AuthorityRepository;
 import com.jhipster.demo.blog.repository.UserRepository;
 import com.jhipster.demo.blog.security.SecurityUtils;
 import com.jhipster.demo.blog.service.dto.AdminUserDTO;
@@ -13,13 +12,16 @@ import java.util.*;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
@@ -34,11 +36,30 @@ public class UserService {
 
     private final UserRepository userRepository;
 
-    private final AuthorityRepository authorityRepository;
+    private final AuthorityRegistry authorityRegistry;
 
-    public UserService(UserRepository userRepository, AuthorityRepository authorityRepository) {
+    private final EntityCache entityCache;
+
+    private final QueryResultCache queryCache;
+
+    private final UserSyncCache userSyncCache;
+
+    private final TransactionalOperator transactionalOperator;
+
+    public UserService(
+        UserRepository userRepository,
+        AuthorityRegistry authorityRegistry,
+        EntityCache entityCache,
+        QueryResultCache queryCache,
+        UserSyncCache userSyncCache,
+        ReactiveTransactionManager transactionManager
+    ) {
         this.userRepository = userRepository;
-        this.authorityRepository = authorityRepository;
+        this.authorityRegistry = authorityRegistry;
+        this.entityCache = entityCache;
+        this.queryCache = queryCache;
+        this.userSyncCache = userSyncCache;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
     }
 
     /**
@@ -95,11 +116,14 @@ public class UserService {
                     } else {
                         persistedUser = userRepository.save(user);
                     }
+                    Set<String> authorities = user.getAuthorities().stream().map(Authority::getName).collect(Collectors.toSet());
                     return persistedUser.flatMap(
                         savedUser ->
-                            Flux
-                                .fromIterable(user.getAuthorities())
-                                .flatMap(authority -> userRepository.saveUserAuthority(savedUser.getId(), authority.getName()))
+                            userRepository
+                                .addUserAuthorities(savedUser.getId(), authorities)
+                                .then(entityCache.evict(User.class, savedUser.getLogin()))
+                                // the cached blogs embed their user
+                                .then(queryCache.invalidate("jhi_user"))
                                 .then(Mono.just(savedUser))
                     );
                 }
@@ -111,6 +135,20 @@ public class UserService {
         return userRepository.findAllByIdNotNull(pageable).map(AdminUserDTO::new);
     }
 
+    @Transactional(readOnly = true)
+    public Mono<Page<AdminUserDTO>> getManagedUsersPage(Pageable pageable) {
+        return userRepository
+            .findPageBy(pageable)
+            .flatMap(
+                page ->
+                    // the authorities of the whole page with one more query
+                    userRepository
+                        .findAllWithAuthoritiesByLogins(page.map(User::getLogin).getContent())
+                        .collectMap(User::getLogin)
+                        .map(users -> page.map(user -> new AdminUserDTO(users.getOrDefault(user.getLogin(), user))))
+            );
+    }
+
     @Transactional(readOnly = true)
     public Flux<UserDTO> getAllPublicUsers(Pageable pageable) {
         return userRepository.findAllByIdNotNullAndActivatedIsTrue(pageable).map(UserDTO::new);
@@ -121,81 +159,102 @@ public class UserService {
         return userRepository.count();
     }
 
+    /**
+     * Gets a user with its authorities, from the {@link EntityCache} once it's loaded.
+     * @param login the login of the user.
+     * @return the user, which is shared by the callers and must not be modified.
+     */
     @Transactional(readOnly = true)
     public Mono<User> getUserWithAuthoritiesByLogin(String login) {
-        return userRepository.findOneWithAuthoritiesByLogin(login);
+        return entityCache.get(User.class, login, () -> userRepository.findOneWithAuthoritiesByLogin(login));
     }
 
     /**
-     * Gets a list of all the authorities.
+     * Gets a list of all the authorities, from the {@link AuthorityRegistry}.
      * @return a list of all the authorities.
      */
-    @Transactional(readOnly = true)
     public Flux<String> getAuthorities() {
-        return authorityRepository.findAll().map(Authority::getName);
+        return authorityRegistry.getAuthorities();
     }
 
     private Mono<User> syncUserWithIdP(Map<String, Object> details, User user) {
         // save authorities in to sync user roles/groups between IdP and JHipster's local database
         Collection<String> userAuthorities = user.getAuthorities().stream().map(Authority::getName).collect(Collectors.toList());
 
-        return getAuthorities()
-            .collectList()
-            .flatMapMany(
-                dbAuthorities -> {
-                    List<Authority> authoritiesToSave = userAuthorities
-                        .stream()
-                        .filter(authority -> !dbAuthorities.contains(authority))
-                        .map(
-                            authority -> {
-                                Authority authorityToSave = new Authority();
-                                authorityToSave.setName(authority);
-                                return authorityToSave;
-                            }
-                        )
-                        .collect(Collectors.toList());
-                    return Flux.fromIterable(authoritiesToSave);
-                }
-            )
-            .doOnNext(authority -> log.debug("Saving authority '{}' in local database", authority))
-            .flatMap(authorityRepository::save)
+        return authorityRegistry
+            .saveMissing(userAuthorities)
             .then(userRepository.findOneByLogin(user.getLogin()))
             .switchIfEmpty(saveUser(user, true))
             .flatMap(
-                existingUser -> {
-                    // if IdP sends last updated information, use it to determine if an update should happen
-                    if (details.get("updated_at") != null) {
-                        Instant dbModifiedDate = existingUser.getLastModifiedDate();
-                        Instant idpModifiedDate = (Instant) details.get("updated_at");
-                        if (idpModifiedDate.isAfter(dbModifiedDate)) {
-                            log.debug("Updating user '{}' in local database", user.getLogin());
-                            return updateUser(
-                                user.getFirstName(),
-                                user.getLastName(),
-                                user.getEmail(),
-                                user.getLangKey(),
-                                user.getImageUrl()
-                            );
-                        }
-                        // no last updated info, blindly update
-                    } else {
-                        log.debug("Updating user '{}' in local database", user.getLogin());
-                        return updateUser(user.getFirstName(), user.getLastName(), user.getEmail(), user.getLangKey(), user.getImageUrl());
-                    }
-                    return Mono.empty();
-                }
+                existingUser -> updateColumnsFromIdP(details, existingUser, user).then(updateAuthorities(existingUser, userAuthorities))
             )
             .thenReturn(user);
     }
 
+    private Mono<Void> updateColumnsFromIdP(Map<String, Object> details, User existingUser, User user) {
+        // if IdP sends last updated information, use it to determine if an update should happen
+        if (details.get("updated_at") != null) {
+            Instant dbModifiedDate = existingUser.getLastModifiedDate();
+            Instant idpModifiedDate = (Instant) details.get("updated_at");
+            if (idpModifiedDate.isAfter(dbModifiedDate)) {
+                return updateChangedColumns(existingUser, user);
+            }
+            return Mono.empty();
+        }
+        // no last updated info, compare the columns
+        return updateChangedColumns(existingUser, user);
+    }
+
+    /**
+     * Gives the user the authorities of the IdP, and only these.
+     */
+    private Mono<Void> updateAuthorities(User existingUser, Collection<String> authorities) {
+        return userRepository
+            .setUserAuthorities(existingUser.getId(), authorities)
+            .filter(written -> written > 0)
+            .flatMap(written -> entityCache.evict(User.class, existingUser.getLogin()));
+    }
+
+    /**
+     * Writes the columns of the user which differ from the IdP, if any.
+     */
+    private Mono<Void> updateChangedColumns(User existingUser, User user) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        putIfChanged(columns, "first_name", existingUser.getFirstName(), user.getFirstName());
+        putIfChanged(columns, "last_name", existingUser.getLastName(), user.getLastName());
+        putIfChanged(columns, "email", existingUser.getEmail(), user.getEmail());
+        putIfChanged(columns, "lang_key", existingUser.getLangKey(), user.getLangKey());
+        putIfChanged(columns, "image_url", existingUser.getImageUrl(), user.getImageUrl());
+        if (columns.isEmpty()) {
+            return Mono.empty();
+        }
+        log.debug("Updating {} of user '{}' in local database", columns.keySet(), user.getLogin());
+        return SecurityUtils
+            .getCurrentUserLogin()
+            .switchIfEmpty(Mono.just(Constants.SYSTEM))
+            .flatMap(
+                login -> {
+                    columns.put("last_modified_by", login);
+                    columns.put("last_modified_date", Instant.now());
+                    return userRepository.updateColumns(existingUser.getId(), columns);
+                }
+            )
+            .then(entityCache.evict(User.class, existingUser.getLogin()));
+    }
+
+    private static void putIfChanged(Map<String, Object> columns, String column, Object oldValue, Object newValue) {
+        if (!Objects.equals(oldValue, newValue)) {
+            columns.put(column, newValue);
+        }
+    }
+
     /**
      * Returns the user from an OAuth 2.0 login or resource server with JWT.
-     * Synchronizes the user in the local repository.
+     * Synchronizes the user in the local repository, unless it was already synchronized from the same claims.
      *
      * @param authToken the authentication token.
      * @return the user from the authentication.
      */
-    @Transactional
     public Mono<AdminUserDTO> getUserFromAuthentication(AbstractAuthenticationToken authToken) {
         Map<String, Object> attributes;
         if (authToken instanceof OAuth2AuthenticationToken) {
@@ -220,7 +279,9 @@ public class UserService {
                 )
                 .collect(Collectors.toSet())
         );
-        return syncUserWithIdP(attributes, user).flatMap(u -> Mono.just(new AdminUserDTO(u)));
+        return userSyncCache
+            .sync(user, () -> transactionalOperator.transactional(syncUserWithIdP(attributes, user)))
+            .then(Mono.fromSupplier(() -> new AdminUserDTO(user)));
     }
 
     private static User getUser(Map<String, Object> details) {
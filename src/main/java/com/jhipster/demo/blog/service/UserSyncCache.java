@@ -0,0 +1,131 @@
+package com.jhipster.demo.blog.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jhipster.demo.blog.config.ApplicationProperties;
+import com.jhipster.demo.blog.domain.Authority;
+import com.jhipster.demo.blog.domain.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Remembers the users synchronized with the identity provider, by subject, with a fingerprint of the claims they were
+ * synchronized from, so that a user is only synchronized again once its claims change.
+ * <p>
+ * A synchronization is only remembered once it succeeded, which is after its transaction committed, and is forgotten when the
+ * user is invalidated in the {@link EntityCache}, e.g. when it's saved or deleted, on this instance or on another one. The
+ * concurrent synchronizations of the same claims share a single run.
+ */
+@Service
+public class UserSyncCache {
+
+    private final Cache<String, Synced> synced;
+    private final Map<List<String>, Mono<Void>> syncs = new ConcurrentHashMap<>();
+    private final Counter skipped;
+    private final Counter performed;
+
+    public UserSyncCache(ApplicationProperties applicationProperties, MeterRegistry meterRegistry, EntityCache entityCache) {
+        ApplicationProperties.UserSync properties = applicationProperties.getUserSync();
+        this.synced = Caffeine.newBuilder().maximumSize(properties.getMaximumSize()).expireAfterWrite(properties.getTimeToLive()).build();
+        this.skipped = syncCounter(meterRegistry, "skipped", "Synchronizations skipped, as the claims didn't change since the last one");
+        this.performed = syncCounter(meterRegistry, "performed", "Synchronizations run, the concurrent ones of the same claims count once");
+        entityCache.addListener(User.class, this::forget);
+    }
+
+    private static Counter syncCounter(MeterRegistry meterRegistry, String result, String description) {
+        return Counter.builder("user.sync").description(description).tag("result", result).register(meterRegistry);
+    }
+
+    /**
+     * Synchronizes a user, unless it was already synchronized from the same claims.
+     *
+     * @param user the user built from the claims of the identity provider.
+     * @param sync synchronizes the user in its own transaction.
+     * @return completes once the user is synchronized.
+     */
+    public Mono<Void> sync(User user, Supplier<Mono<?>> sync) {
+        String subject = user.getId();
+        if (subject == null) {
+            performed.increment();
+            return sync.get().then();
+        }
+        String fingerprint = fingerprint(user);
+        Synced last = synced.getIfPresent(subject);
+        if (last != null && last.fingerprint.equals(fingerprint)) {
+            skipped.increment();
+            return Mono.empty();
+        }
+        List<String> key = List.of(subject, fingerprint);
+        return syncs.computeIfAbsent(
+            key,
+            k -> {
+                performed.increment();
+                AtomicReference<Mono<Void>> run = new AtomicReference<>();
+                run.set(
+                    sync
+                        .get()
+                        .then(Mono.<Void>fromRunnable(() -> synced.put(subject, new Synced(user.getLogin(), fingerprint))))
+                        .doFinally(signal -> syncs.remove(k, run.get()))
+                        .cache()
+                );
+                return run.get();
+            }
+        );
+    }
+
+    private void forget(@Nullable Object login) {
+        if (login == null) {
+            synced.invalidateAll();
+        } else {
+            synced.asMap().values().removeIf(last -> last.login.equals(login));
+        }
+    }
+
+    /**
+     * Digests the claims the user is synchronized from, the authorities in a stable order.
+     */
+    static String fingerprint(User user) {
+        String authorities = user.getAuthorities().stream().map(Authority::getName).sorted().collect(Collectors.joining(","));
+        String claims = String.join(
+            "\u0000",
+            user.getLogin(),
+            user.getFirstName(),
+            user.getLastName(),
+            user.getEmail(),
+            String.valueOf(user.isActivated()),
+            user.getLangKey(),
+            user.getImageUrl(),
+            authorities
+        );
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(claims.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Synced {
+
+        private final String login;
+        private final String fingerprint;
+
+        Synced(String login, String fingerprint) {
+            this.login = login;
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.jhipster.demo.blog.web.filter;
+
+import com.jhipster.demo.blog.config.MeteredTransactionManager;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+@Component
+public class TransactionCountWebFilter implements WebFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    public TransactionCountWebFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Records the number of database transactions of each API request, see {@link MeteredTransactionManager}.
+     */
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!exchange.getRequest().getURI().getPath().startsWith("/api")) {
+            return chain.filter(exchange);
+        }
+        AtomicInteger transactions = new AtomicInteger();
+        // recorded before the response is sent, so it's visible to the client once it has the response
+        exchange
+            .getResponse()
+            .beforeCommit(
+                () ->
+                    Mono.<Void>fromRunnable(
+                        () ->
+                            DistributionSummary
+                                .builder("http.server.requests.transactions")
+                                .description("Database transactions per API request")
+                                .tag("method", exchange.getRequest().getMethodValue())
+                                .register(meterRegistry)
+                                .record(transactions.get())
+                    )
+            );
+        return chain
+            .filter(exchange)
+            .subscriberContext(context -> context.put(MeteredTransactionManager.REQUEST_TRANSACTIONS, transactions));
+    }
+}
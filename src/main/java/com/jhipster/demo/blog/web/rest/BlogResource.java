@@ -15,6 +15,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
@@ -117,22 +118,7 @@ public class BlogResource {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
 
-        Mono<Blog> result = blogRepository
-            .findById(blog.getId())
-            .map(
-                existingBlog -> {
-                    if (blog.getName() != null) {
-                        existingBlog.setName(blog.getName());
-                    }
-
-                    if (blog.getHandle() != null) {
-                        existingBlog.setHandle(blog.getHandle());
-                    }
-
-                    return existingBlog;
-                }
-            )
-            .flatMap(blogRepository::save);
+        Mono<Blog> result = blogRepository.partialUpdate(blog);
 
         return result
             .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
@@ -151,6 +137,7 @@ public class BlogResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of blogs in body.
      */
     @GetMapping("/blogs")
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Mono<List<Blog>> getAllBlogs() {
         log.debug("REST request to get all Blogs");
         return blogRepository.findAll().collectList();
@@ -161,6 +148,7 @@ public class BlogResource {
      * @return the {@link Flux} of blogs.
      */
     @GetMapping(value = "/blogs", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Flux<Blog> getAllBlogsAsStream() {
         log.debug("REST request to get all Blogs as a stream");
         return blogRepository.findAll();
@@ -173,6 +161,7 @@ public class BlogResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the blog, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/blogs/{id}")
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Mono<ResponseEntity<Blog>> getBlog(@PathVariable Long id) {
         log.debug("REST request to get Blog : {}", id);
         Mono<Blog> blog = blogRepository.findById(id);
@@ -1,10 +1,15 @@
 package com.jhipster.demo.blog.web.rest;
 
 import com.jhipster.demo.blog.domain.Post;
+import com.jhipster.demo.blog.domain.PostSummary;
 import com.jhipster.demo.blog.repository.PostRepository;
 import com.jhipster.demo.blog.web.rest.errors.BadRequestAlertException;
+import com.jhipster.demo.blog.web.rest.util.KeysetCursor;
+import com.jhipster.demo.blog.web.rest.util.SlicePaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.DateTimeException;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -16,11 +21,13 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
@@ -43,6 +50,8 @@ public class PostResource {
 
     private static final String ENTITY_NAME = "post";
 
+    private static final int MAX_PAGE_SIZE = 2000;
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -125,26 +134,7 @@ public class PostResource {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
 
-        Mono<Post> result = postRepository
-            .findById(post.getId())
-            .map(
-                existingPost -> {
-                    if (post.getTitle() != null) {
-                        existingPost.setTitle(post.getTitle());
-                    }
-
-                    if (post.getContent() != null) {
-                        existingPost.setContent(post.getContent());
-                    }
-
-                    if (post.getDate() != null) {
-                        existingPost.setDate(post.getDate());
-                    }
-
-                    return existingPost;
-                }
-            )
-            .flatMap(postRepository::save);
+        Mono<Post> result = postRepository.partialUpdate(post);
 
         return result
             .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
@@ -158,38 +148,133 @@ public class PostResource {
     }
 
     /**
-     * {@code GET  /posts} : get all the posts.
+     * {@code GET  /posts} : get all the posts, as summaries with an excerpt of their content.
      *
      * @param pageable the pagination information.
      * @param request a {@link ServerHttpRequest} request.
      * @param eagerload flag to eager load entities from relationships (This is applicable for many-to-many).
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of posts in body.
+     * @param count flag to compute the total count, without it only the {@code next} link tells whether there are more posts.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of post summaries in body.
      */
     @GetMapping("/posts")
-    public Mono<ResponseEntity<List<Post>>> getAllPosts(
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Mono<ResponseEntity<List<PostSummary>>> getAllPosts(
         Pageable pageable,
         ServerHttpRequest request,
-        @RequestParam(required = false, defaultValue = "false") boolean eagerload
+        @RequestParam(required = false, defaultValue = "false") boolean eagerload,
+        @RequestParam(required = false, defaultValue = "true") boolean count
+    ) {
+        log.debug("REST request to get a page of Post summaries");
+        if (!count) {
+            Mono<Slice<PostSummary>> slice = eagerload
+                ? postRepository.findSummarySliceWithEagerRelationships(pageable)
+                : postRepository.findSummarySliceBy(pageable);
+            return slice.map(posts -> sliceResponse(request, posts));
+        }
+        Mono<Page<PostSummary>> page = eagerload
+            ? postRepository.findSummaryPageWithEagerRelationships(pageable)
+            : postRepository.findSummaryPageBy(pageable);
+        return page.map(posts -> pageResponse(request, posts));
+    }
+
+    /**
+     * {@code GET  /posts?content=true} : get all the posts, with their full content.
+     *
+     * @param pageable the pagination information.
+     * @param request a {@link ServerHttpRequest} request.
+     * @param eagerload flag to eager load entities from relationships (This is applicable for many-to-many).
+     * @param count flag to compute the total count, without it only the {@code next} link tells whether there are more posts.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of posts in body.
+     */
+    @GetMapping(value = "/posts", params = { "content=true", "!after" })
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Mono<ResponseEntity<List<Post>>> getAllPostsWithContent(
+        Pageable pageable,
+        ServerHttpRequest request,
+        @RequestParam(required = false, defaultValue = "false") boolean eagerload,
+        @RequestParam(required = false, defaultValue = "true") boolean count
     ) {
         log.debug("REST request to get a page of Posts");
+        if (!count) {
+            Mono<Slice<Post>> slice = eagerload
+                ? postRepository.findSliceWithEagerRelationships(pageable)
+                : postRepository.findSliceBy(pageable);
+            return slice.map(posts -> sliceResponse(request, posts));
+        }
+        Mono<Page<Post>> page = eagerload
+            ? postRepository.findPageWithEagerRelationships(pageable)
+            : postRepository.findPageBy(pageable);
+        return page.map(posts -> pageResponse(request, posts));
+    }
+
+    private static <T> ResponseEntity<List<T>> sliceResponse(ServerHttpRequest request, Slice<T> slice) {
+        return ResponseEntity
+            .ok()
+            .headers(SlicePaginationUtil.generateSliceHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), slice))
+            .body(slice.getContent());
+    }
+
+    private static <T> ResponseEntity<List<T>> pageResponse(ServerHttpRequest request, Page<T> page) {
+        return ResponseEntity
+            .ok()
+            .headers(PaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), page))
+            .body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /posts?after=:cursor} : get the post summaries after the given cursor, newest first.
+     * <p>
+     * The page is found by seeking to the last seen {@code (date, id)} instead of skipping rows, so every page costs the same,
+     * however deep it is.
+     *
+     * @param after the cursor from the {@code next} link of the previous page, empty for the first page.
+     * @param size the page size.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of post summaries in body, or with status {@code 400 (Bad Request)} if the cursor is invalid.
+     */
+    @GetMapping(value = "/posts", params = "after")
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Mono<ResponseEntity<List<PostSummary>>> getPostsAfter(
+        @RequestParam String after,
+        @RequestParam(required = false, defaultValue = "20") int size,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get Posts after cursor : {}", after);
+        KeysetCursor cursor = decodeCursor(after);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Instant date = cursor != null ? Instant.parse(cursor.getKey()) : null;
+        Long id = cursor != null ? cursor.getId() : null;
         return postRepository
-            .count()
-            .zipWith(postRepository.findAllBy(pageable).collectList())
+            .findSummariesAfter(date, id, pageSize + 1)
+            .collectList()
             .map(
-                countWithEntities -> {
+                posts -> {
+                    KeysetCursor next = null;
+                    if (posts.size() > pageSize) {
+                        posts = posts.subList(0, pageSize);
+                        PostSummary last = posts.get(pageSize - 1);
+                        next = new KeysetCursor(last.getDate().toString(), last.getId());
+                    }
                     return ResponseEntity
                         .ok()
-                        .headers(
-                            PaginationUtil.generatePaginationHttpHeaders(
-                                UriComponentsBuilder.fromHttpRequest(request),
-                                new PageImpl<>(countWithEntities.getT2(), pageable, countWithEntities.getT1())
-                            )
-                        )
-                        .body(countWithEntities.getT2());
+                        .headers(KeysetCursor.generateNextLinkHeader(UriComponentsBuilder.fromHttpRequest(request), next, pageSize))
+                        .body(posts);
                 }
             );
     }
 
+    private KeysetCursor decodeCursor(String after) {
+        try {
+            KeysetCursor cursor = KeysetCursor.decode(after);
+            if (cursor != null) {
+                Instant.parse(cursor.getKey());
+            }
+            return cursor;
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "invalidcursor");
+        }
+    }
+
     /**
      * {@code GET  /posts/:id} : get the "id" post.
      *
@@ -197,6 +282,7 @@ public class PostResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the post, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/posts/{id}")
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Mono<ResponseEntity<Post>> getPost(@PathVariable Long id) {
         log.debug("REST request to get Post : {}", id);
         Mono<Post> post = postRepository.findOneWithEagerRelationships(id);
@@ -3,6 +3,8 @@ package com.jhipster.demo.blog.web.rest;
 import com.jhipster.demo.blog.domain.Tag;
 import com.jhipster.demo.blog.repository.TagRepository;
 import com.jhipster.demo.blog.web.rest.errors.BadRequestAlertException;
+import com.jhipster.demo.blog.web.rest.util.KeysetCursor;
+import com.jhipster.demo.blog.web.rest.util.SlicePaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
@@ -21,6 +23,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
@@ -43,6 +46,8 @@ public class TagResource {
 
     private static final String ENTITY_NAME = "tag";
 
+    private static final int MAX_PAGE_SIZE = 2000;
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -154,25 +159,82 @@ public class TagResource {
      *
      * @param pageable the pagination information.
      * @param request a {@link ServerHttpRequest} request.
+     * @param count flag to compute the total count, without it only the {@code next} link tells whether there are more tags.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of tags in body.
      */
     @GetMapping("/tags")
-    public Mono<ResponseEntity<List<Tag>>> getAllTags(Pageable pageable, ServerHttpRequest request) {
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Mono<ResponseEntity<List<Tag>>> getAllTags(
+        Pageable pageable,
+        ServerHttpRequest request,
+        @RequestParam(required = false, defaultValue = "true") boolean count
+    ) {
         log.debug("REST request to get a page of Tags");
+        if (!count) {
+            return tagRepository
+                .findSliceBy(pageable)
+                .map(
+                    slice ->
+                        ResponseEntity
+                            .ok()
+                            .headers(SlicePaginationUtil.generateSliceHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), slice))
+                            .body(slice.getContent())
+                );
+        }
         return tagRepository
-            .count()
-            .zipWith(tagRepository.findAllBy(pageable).collectList())
+            .findPageBy(pageable)
             .map(
-                countWithEntities -> {
+                tags ->
+                    ResponseEntity
+                        .ok()
+                        .headers(PaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), tags))
+                        .body(tags.getContent())
+            );
+    }
+
+    /**
+     * {@code GET  /tags?after=:cursor} : get the tags after the given cursor, ordered by name.
+     * <p>
+     * The page is found by seeking to the last seen {@code (name, id)} instead of skipping rows, so every page costs the same,
+     * however deep it is.
+     *
+     * @param after the cursor from the {@code next} link of the previous page, empty for the first page.
+     * @param size the page size.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of tags in body, or with status {@code 400 (Bad Request)} if the cursor is invalid.
+     */
+    @GetMapping(value = "/tags", params = "after")
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Mono<ResponseEntity<List<Tag>>> getTagsAfter(
+        @RequestParam String after,
+        @RequestParam(required = false, defaultValue = "20") int size,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get Tags after cursor : {}", after);
+        KeysetCursor cursor;
+        try {
+            cursor = KeysetCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "invalidcursor");
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        String name = cursor != null ? cursor.getKey() : null;
+        Long id = cursor != null ? cursor.getId() : null;
+        return tagRepository
+            .findAllAfter(name, id, pageSize + 1)
+            .collectList()
+            .map(
+                tags -> {
+                    KeysetCursor next = null;
+                    if (tags.size() > pageSize) {
+                        tags = tags.subList(0, pageSize);
+                        Tag last = tags.get(pageSize - 1);
+                        next = new KeysetCursor(last.getName(), last.getId());
+                    }
                     return ResponseEntity
                         .ok()
-                        .headers(
-                            PaginationUtil.generatePaginationHttpHeaders(
-                                UriComponentsBuilder.fromHttpRequest(request),
-                                new PageImpl<>(countWithEntities.getT2(), pageable, countWithEntities.getT1())
-                            )
-                        )
-                        .body(countWithEntities.getT2());
+                        .headers(KeysetCursor.generateNextLinkHeader(UriComponentsBuilder.fromHttpRequest(request), next, pageSize))
+                        .body(tags);
                 }
             );
     }
@@ -184,6 +246,7 @@ public class TagResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the tag, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/tags/{id}")
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Mono<ResponseEntity<Tag>> getTag(@PathVariable Long id) {
         log.debug("REST request to get Tag : {}", id);
         Mono<Tag> tag = tagRepository.findById(id);
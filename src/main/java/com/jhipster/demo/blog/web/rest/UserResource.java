@@ -77,10 +77,14 @@ public class UserResource {
         log.debug("REST request to get all User for an admin");
 
         return userService
-            .countManagedUsers()
-            .map(total -> new PageImpl<>(new ArrayList<>(), pageable, total))
-            .map(page -> PaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), page))
-            .map(headers -> ResponseEntity.ok().headers(headers).body(userService.getAllManagedUsers(pageable)));
+            .getManagedUsersPage(pageable)
+            .map(
+                page ->
+                    ResponseEntity
+                        .ok()
+                        .headers(PaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), page))
+                        .body(Flux.fromIterable(page.getContent()))
+            );
     }
 
     /**
@@ -0,0 +1,84 @@
+package com.jhipster.demo.blog.web.rest.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Opaque cursor for keyset (seek) pagination.
+ * <p>
+ * A cursor holds the sort key and the id of the last entity of a page, the next page starts right after it.
+ * Clients only pass the cursor back from the {@code next} link, so its encoding is not part of the API.
+ */
+public final class KeysetCursor {
+
+    private static final char SEPARATOR = '|';
+
+    private final String key;
+    private final Long id;
+
+    public KeysetCursor(String key, Long id) {
+        this.key = Objects.requireNonNull(key, "key is null");
+        this.id = Objects.requireNonNull(id, "id is null");
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Encodes the cursor into a URL safe string.
+     *
+     * @return the opaque cursor.
+     */
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((key + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor created by {@link #encode()}.
+     *
+     * @param cursor the opaque cursor, an empty value selects the first page.
+     * @return the decoded cursor, or {@code null} for the first page.
+     * @throws IllegalArgumentException if the value is not a valid cursor.
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int separator = decoded.lastIndexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return new KeysetCursor(decoded.substring(0, separator), Long.valueOf(decoded.substring(separator + 1)));
+    }
+
+    /**
+     * Generates the {@code Link} header pointing to the page after the given cursor.
+     *
+     * @param uriBuilder the URI of the current request.
+     * @param next the cursor of the last entity of the current page, or {@code null} if this was the last page.
+     * @param size the page size.
+     * @return the {@link HttpHeaders}, without a link if there is no next page.
+     */
+    public static HttpHeaders generateNextLinkHeader(UriComponentsBuilder uriBuilder, KeysetCursor next, int size) {
+        HttpHeaders headers = new HttpHeaders();
+        if (next != null) {
+            String link = uriBuilder
+                .replaceQueryParam("after", next.encode())
+                .replaceQueryParam("size", size)
+                .toUriString()
+                .replace(",", "%2C")
+                .replace(";", "%3B");
+            headers.add(HttpHeaders.LINK, "<" + link + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,51 @@
+package com.jhipster.demo.blog.web.rest.util;
+
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for handling pagination of {@link Slice}s, which know whether there is a next page, but not the total count.
+ * <p>
+ * The {@code Link} header follows the format used by {@link tech.jhipster.web.util.PaginationUtil}, without the {@code last} link.
+ */
+public final class SlicePaginationUtil {
+
+    private static final String HEADER_HAS_NEXT_PAGE = "X-Has-Next-Page";
+
+    private SlicePaginationUtil() {}
+
+    /**
+     * Generate pagination headers for a Spring Data {@link Slice} object.
+     *
+     * @param uriBuilder The URI builder.
+     * @param slice The slice.
+     * @param <T> The type of object.
+     * @return http header.
+     */
+    public static <T> HttpHeaders generateSliceHttpHeaders(UriComponentsBuilder uriBuilder, Slice<T> slice) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HEADER_HAS_NEXT_PAGE, Boolean.toString(slice.hasNext()));
+        int pageNumber = slice.getNumber();
+        int pageSize = slice.getSize();
+        StringBuilder link = new StringBuilder();
+        if (slice.hasNext()) {
+            link.append(prepareLink(uriBuilder, pageNumber + 1, pageSize, "next")).append(",");
+        }
+        if (slice.hasPrevious()) {
+            link.append(prepareLink(uriBuilder, pageNumber - 1, pageSize, "prev")).append(",");
+        }
+        link.append(prepareLink(uriBuilder, 0, pageSize, "first"));
+        headers.add(HttpHeaders.LINK, link.toString());
+        return headers;
+    }
+
+    private static String prepareLink(UriComponentsBuilder uriBuilder, int pageNumber, int pageSize, String relType) {
+        return "<" + uriBuilder
+            .replaceQueryParam("page", pageNumber)
+            .replaceQueryParam("size", pageSize)
+            .toUriString()
+            .replace(",", "%2C")
+            .replace(";", "%3B") + ">; rel=\"" + relType + "\"";
+    }
+}
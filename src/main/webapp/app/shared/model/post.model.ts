@@ -5,6 +5,7 @@ export interface IPost {
   id?: number;
   title?: string;
   content?: string;
+  excerpt?: string;
   date?: Date;
   blog?: IBlog;
   tags?: ITag[];
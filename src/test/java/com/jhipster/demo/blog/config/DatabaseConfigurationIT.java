@@ -0,0 +1,54 @@
+package com.jhipster.demo.blog.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jhipster.demo.blog.IntegrationTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import reactor.core.publisher.Mono;
+
+/**
+ * Integration tests for the connection pool of {@link DatabaseConfiguration}.
+ */
+@IntegrationTest
+class DatabaseConfigurationIT {
+
+    private static final String POOL_NAME = "connectionFactory";
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private R2dbcProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void poolIsWarmedUpAtStartup() {
+        assertThat(connectionFactory).isInstanceOf(MeteredConnectionFactory.class);
+        ConnectionPool pool = (ConnectionPool) ((Wrapped<?>) connectionFactory).unwrap();
+        PoolMetrics metrics = pool.getMetrics().orElseThrow();
+
+        assertThat(metrics.allocatedSize()).isGreaterThanOrEqualTo(properties.getPool().getInitialSize());
+        assertThat(metrics.getMaxAllocatedSize()).isEqualTo(properties.getPool().getMaxSize());
+    }
+
+    @Test
+    void poolMetersAreRegistered() {
+        connectionFactory.create().flatMap(connection -> Mono.from(connection.close())).block();
+
+        assertThat(meterRegistry.get("r2dbc.pool.acquire").tag("name", POOL_NAME).tag("result", "success").timer().count())
+            .isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.get("r2dbc.pool.pending").tag("name", POOL_NAME).gauge().value()).isZero();
+        assertThat(meterRegistry.get("r2dbc.pool.acquired").tag("name", POOL_NAME).gauge()).isNotNull();
+        assertThat(meterRegistry.get("r2dbc.pool.idle").tag("name", POOL_NAME).gauge().value())
+            .isGreaterThanOrEqualTo(properties.getPool().getInitialSize());
+    }
+}
@@ -10,5 +10,7 @@ public class JHipsterBlockHoundIntegration implements BlockHoundIntegration {
         // Workaround until https://github.com/reactor/reactor-core/issues/2137 is fixed
         builder.allowBlockingCallsInside("reactor.core.scheduler.BoundedElasticScheduler$BoundedState", "dispose");
         builder.allowBlockingCallsInside("reactor.core.scheduler.BoundedElasticScheduler", "schedule");
+        // Caffeine briefly takes its eviction lock to apply the pending writes
+        builder.allowBlockingCallsInside("com.github.benmanes.caffeine.cache.BoundedLocalCache", "performCleanUp");
     }
 }
@@ -0,0 +1,150 @@
+package com.jhipster.demo.blog.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Unit tests for {@link RoutingConnectionFactory}, with two in-memory H2 databases standing for the primary and a replica.
+ */
+class RoutingConnectionFactoryTest {
+
+    private static final Duration READ_YOUR_WRITES_WINDOW = Duration.ofMillis(300);
+
+    private ConnectionFactory primary;
+    private ConnectionFactory replica;
+    private SimpleMeterRegistry meterRegistry;
+    private RoutingConnectionFactory routingConnectionFactory;
+
+    @BeforeEach
+    public void init() {
+        primary = database("routing-primary", "primary");
+        replica = database("routing-replica", "replica");
+        meterRegistry = new SimpleMeterRegistry();
+        routingConnectionFactory = routing(Collections.singletonList(replica));
+    }
+
+    @AfterEach
+    public void destroy() {
+        routingConnectionFactory.dispose();
+    }
+
+    private static ConnectionFactory database(String name, String role) {
+        ConnectionFactory connectionFactory = ConnectionFactories.get("r2dbc:h2:mem:///" + name + ";DB_CLOSE_DELAY=-1");
+        Mono
+            .usingWhen(
+                connectionFactory.create(),
+                connection ->
+                    Flux
+                        .concat(
+                            connection.createStatement("DROP TABLE IF EXISTS db").execute(),
+                            connection.createStatement("CREATE TABLE db (role VARCHAR(20))").execute(),
+                            connection.createStatement("INSERT INTO db VALUES ('" + role + "')").execute()
+                        )
+                        .flatMap(result -> result.getRowsUpdated())
+                        .then(),
+                Connection::close
+            )
+            .block();
+        return connectionFactory;
+    }
+
+    private RoutingConnectionFactory routing(List<ConnectionFactory> replicas) {
+        return new RoutingConnectionFactory(primary, replicas, READ_YOUR_WRITES_WINDOW, Duration.ofHours(1), meterRegistry);
+    }
+
+    private String role(RoutingConnectionFactory connectionFactory, Context context) {
+        return Mono
+            .usingWhen(
+                connectionFactory.create(),
+                connection ->
+                    Flux
+                        .from(connection.createStatement("SELECT role FROM db").execute())
+                        .flatMap(result -> result.map((row, metadata) -> row.get("role", String.class)))
+                        .next(),
+                Connection::close
+            )
+            .subscriberContext(context)
+            .block();
+    }
+
+    private static Context beginTransaction(boolean readOnly, String login) {
+        Context context = Context.of(RoutingConnectionFactory.READ_ONLY, readOnly);
+        if (login == null) {
+            return context;
+        }
+        return context.putAll(ReactiveSecurityContextHolder.withAuthentication(new UsernamePasswordAuthenticationToken(login, login)));
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        assertThat(role(routingConnectionFactory, beginTransaction(true, null))).isEqualTo("replica");
+        assertThat(meterRegistry.get("r2dbc.routing.connections").tag("target", "replica").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void writesAndWorkOutsideOfTransactionsUseThePrimary() {
+        assertThat(role(routingConnectionFactory, beginTransaction(false, null))).isEqualTo("primary");
+        assertThat(role(routingConnectionFactory, Context.empty())).isEqualTo("primary");
+        assertThat(meterRegistry.get("r2dbc.routing.connections").tag("target", "primary").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void readsFollowingAWriteUseThePrimary() throws InterruptedException {
+        role(routingConnectionFactory, beginTransaction(false, "john"));
+
+        assertThat(role(routingConnectionFactory, beginTransaction(true, "john"))).isEqualTo("primary");
+        assertThat(role(routingConnectionFactory, beginTransaction(true, "jane"))).isEqualTo("replica");
+
+        Thread.sleep(READ_YOUR_WRITES_WINDOW.toMillis() + 50);
+        assertThat(role(routingConnectionFactory, beginTransaction(true, "john"))).isEqualTo("replica");
+    }
+
+    @Test
+    void replicasAreUsedInTurn() {
+        ConnectionFactory otherReplica = database("routing-other-replica", "other replica");
+        RoutingConnectionFactory connectionFactory = routing(Arrays.asList(replica, otherReplica));
+        try {
+            assertThat(role(connectionFactory, beginTransaction(true, null))).isEqualTo("replica");
+            assertThat(role(connectionFactory, beginTransaction(true, null))).isEqualTo("other replica");
+            assertThat(role(connectionFactory, beginTransaction(true, null))).isEqualTo("replica");
+        } finally {
+            connectionFactory.dispose();
+        }
+    }
+
+    @Test
+    void unavailableReplicaIsSkippedUntilItRecovers() {
+        ConnectionFactory failingReplica = mock(ConnectionFactory.class);
+        doReturn(Mono.error(new IllegalStateException("replica down"))).when(failingReplica).create();
+        RoutingConnectionFactory connectionFactory = routing(Collections.singletonList(failingReplica));
+        try {
+            assertThat(role(connectionFactory, beginTransaction(true, null))).isEqualTo("primary");
+
+            doReturn(replica.create()).when(failingReplica).create();
+            // still considered down until the next health check
+            assertThat(role(connectionFactory, beginTransaction(true, null))).isEqualTo("primary");
+            connectionFactory.checkReplicas().block();
+            assertThat(role(connectionFactory, beginTransaction(true, null))).isEqualTo("replica");
+        } finally {
+            connectionFactory.dispose();
+        }
+    }
+}
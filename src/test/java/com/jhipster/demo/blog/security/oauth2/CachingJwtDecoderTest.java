@@ -0,0 +1,100 @@
+package com.jhipster.demo.blog.security.oauth2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.jhipster.demo.blog.config.ApplicationProperties;
+import com.jhipster.demo.blog.security.AuthoritiesConstants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+
+/**
+ * Test class for the {@link CachingJwtDecoder}.
+ */
+class CachingJwtDecoderTest {
+
+    private ReactiveJwtDecoder delegate;
+
+    private CachingJwtDecoder decoder;
+
+    @BeforeEach
+    void setup() {
+        delegate = mock(ReactiveJwtDecoder.class);
+        decoder =
+            new CachingJwtDecoder(
+                delegate,
+                new JwtGrantedAuthorityConverter(),
+                new ApplicationProperties().getJwtCache(),
+                new SimpleMeterRegistry()
+            );
+    }
+
+    @Test
+    void testVerifiedTokenIsCached() {
+        Jwt jwt = jwt("token", Instant.now().plus(5, ChronoUnit.MINUTES));
+        when(delegate.decode("token")).thenReturn(Mono.just(jwt));
+
+        assertThat(decoder.decode("token").block()).isSameAs(jwt);
+        assertThat(decoder.decode("token").block()).isSameAs(jwt);
+
+        verify(delegate, times(1)).decode("token");
+        assertThat(decoder.getAuthorities(jwt)).extracting("authority").containsExactly(AuthoritiesConstants.ADMIN);
+    }
+
+    @Test
+    void testExpiredTokenIsNotCached() {
+        Jwt jwt = jwt("expired", Instant.now().minus(5, ChronoUnit.MINUTES));
+        when(delegate.decode("expired")).thenReturn(Mono.just(jwt));
+
+        decoder.decode("expired").block();
+        decoder.decode("expired").block();
+
+        verify(delegate, times(2)).decode("expired");
+    }
+
+    @Test
+    void testInvalidTokenIsNotCached() {
+        when(delegate.decode("invalid")).thenReturn(Mono.error(new BadJwtException("Invalid signature")));
+
+        assertThatThrownBy(() -> decoder.decode("invalid").block()).isInstanceOf(BadJwtException.class);
+        assertThatThrownBy(() -> decoder.decode("invalid").block()).isInstanceOf(BadJwtException.class);
+
+        verify(delegate, times(2)).decode("invalid");
+    }
+
+    @Test
+    void testTokensShareTheirAuthorities() {
+        Jwt jwt = jwt("token", Instant.now().plus(5, ChronoUnit.MINUTES));
+        Jwt otherJwt = jwt("other", Instant.now().plus(5, ChronoUnit.MINUTES));
+        when(delegate.decode("token")).thenReturn(Mono.just(jwt));
+        when(delegate.decode("other")).thenReturn(Mono.just(otherJwt));
+
+        decoder.decode("token").block();
+        decoder.decode("other").block();
+
+        assertThat(decoder.getAuthorities(otherJwt)).isSameAs(decoder.getAuthorities(jwt));
+    }
+
+    private static Jwt jwt(String token, Instant expiresAt) {
+        return Jwt
+            .withTokenValue(token)
+            .header("alg", "RS256")
+            .subject("johndoe")
+            .issuedAt(expiresAt.minus(1, ChronoUnit.HOURS))
+            .expiresAt(expiresAt)
+            .claim("groups", List.of(AuthoritiesConstants.ADMIN))
+            .build();
+    }
+}
@@ -0,0 +1,87 @@
+package com.jhipster.demo.blog.security.oauth2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.jhipster.demo.blog.config.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
+import org.springframework.security.oauth2.client.userinfo.ReactiveOAuth2UserService;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import reactor.core.publisher.Mono;
+
+/**
+ * Test class for the {@link CachingOAuth2UserService}.
+ */
+class CachingOAuth2UserServiceTest {
+
+    private static final ClientRegistration CLIENT_REGISTRATION = ClientRegistration
+        .withRegistrationId("oidc")
+        .redirectUriTemplate("{baseUrl}/{action}/oauth2/code/{registrationId}")
+        .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+        .authorizationUri("http://localhost:9080/auth")
+        .tokenUri("http://localhost:9080/token")
+        .userInfoUri("http://localhost:9080/userinfo")
+        .userNameAttributeName("sub")
+        .clientId("web_app")
+        .build();
+
+    private ReactiveOAuth2UserService<OAuth2UserRequest, OAuth2User> delegate;
+
+    private CachingOAuth2UserService userService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        delegate = mock(ReactiveOAuth2UserService.class);
+        OAuth2User user = new DefaultOAuth2User(List.of(new SimpleGrantedAuthority("ROLE_USER")), Map.of("sub", "johndoe"), "sub");
+        when(delegate.loadUser(any())).thenReturn(Mono.just(user));
+        userService = new CachingOAuth2UserService(delegate, new ApplicationProperties().getOidcCache(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testUserInfoIsCachedPerAccessToken() {
+        OAuth2UserRequest request = request("token", Instant.now().plus(5, ChronoUnit.MINUTES));
+
+        OAuth2User user = userService.loadUser(request).block();
+        assertThat(userService.loadUser(request("token", Instant.now().plus(5, ChronoUnit.MINUTES))).block()).isSameAs(user);
+        userService.loadUser(request("other", Instant.now().plus(5, ChronoUnit.MINUTES))).block();
+
+        verify(delegate, times(2)).loadUser(any());
+    }
+
+    @Test
+    void testUserInfoOfExpiredTokenIsNotCached() {
+        OAuth2UserRequest request = request("expired", Instant.now().minus(5, ChronoUnit.MINUTES));
+
+        userService.loadUser(request).block();
+        userService.loadUser(request).block();
+
+        verify(delegate, times(2)).loadUser(any());
+    }
+
+    private static OAuth2UserRequest request(String token, Instant expiresAt) {
+        OAuth2AccessToken accessToken = new OAuth2AccessToken(
+            OAuth2AccessToken.TokenType.BEARER,
+            token,
+            expiresAt.minus(1, ChronoUnit.HOURS),
+            expiresAt
+        );
+        return new OAuth2UserRequest(CLIENT_REGISTRATION, accessToken);
+    }
+}
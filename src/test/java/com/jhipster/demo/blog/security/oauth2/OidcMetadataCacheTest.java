@@ -0,0 +1,161 @@
+package com.jhipster.demo.blog.security.oauth2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.jhipster.demo.blog.config.ApplicationProperties;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Test class for the {@link OidcMetadataCache}, against a stub identity provider.
+ */
+class OidcMetadataCacheTest {
+
+    private static final String REALM_PATH = "/auth/realms/jhipster";
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer identityProvider;
+
+    private String issuerUri;
+
+    private volatile RSAKey signingKey;
+
+    private volatile boolean available = true;
+
+    private final AtomicInteger jwksRequests = new AtomicInteger();
+
+    private ApplicationProperties.OidcCache properties;
+
+    @BeforeEach
+    void setup() throws Exception {
+        signingKey = new RSAKeyGenerator(2048).keyID("first").generate();
+
+        identityProvider = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        issuerUri = "http://localhost:" + identityProvider.getAddress().getPort() + REALM_PATH;
+        identityProvider.createContext(
+            REALM_PATH + "/.well-known/openid-configuration",
+            exchange ->
+                respond(exchange, "{\"issuer\":\"" + issuerUri + "\",\"jwks_uri\":\"" + issuerUri + "/protocol/openid-connect/certs\"}")
+        );
+        identityProvider.createContext(
+            REALM_PATH + "/protocol/openid-connect/certs",
+            exchange -> {
+                jwksRequests.incrementAndGet();
+                respond(exchange, new JWKSet(signingKey.toPublicJWK()).toString());
+            }
+        );
+        identityProvider.start();
+
+        properties = new ApplicationProperties().getOidcCache();
+        properties.setFile(tempDir.resolve("oidc-metadata.json").toString());
+        properties.setRefreshInBackground(false);
+    }
+
+    @AfterEach
+    void stopIdentityProvider() {
+        identityProvider.stop(0);
+    }
+
+    @Test
+    void testMetadataIsRestoredWithoutTheIdentityProvider() throws Exception {
+        String token = sign(signingKey);
+        assertThat(decoder(newCache()).decode(token).block()).extracting(Jwt::getSubject).isEqualTo("johndoe");
+
+        available = false;
+
+        assertThat(decoder(newCache()).decode(token).block()).extracting(Jwt::getSubject).isEqualTo("johndoe");
+        assertThat(jwksRequests).hasValue(1);
+    }
+
+    @Test
+    void testRotatedKeyIsFetched() throws Exception {
+        properties.setMinimumRefreshInterval(Duration.ZERO);
+        ReactiveJwtDecoder decoder = decoder(newCache());
+        decoder.decode(sign(signingKey)).block();
+
+        signingKey = new RSAKeyGenerator(2048).keyID("second").generate();
+
+        assertThat(decoder.decode(sign(signingKey)).block()).extracting(Jwt::getSubject).isEqualTo("johndoe");
+        assertThat(jwksRequests).hasValue(2);
+    }
+
+    @Test
+    void testUnknownKeysAreRefreshedAtMostOncePerInterval() throws Exception {
+        properties.setMinimumRefreshInterval(Duration.ofHours(1));
+        ReactiveJwtDecoder decoder = decoder(newCache());
+        decoder.decode(sign(signingKey)).block();
+
+        RSAKey unknownKey = new RSAKeyGenerator(2048).keyID("unknown").generate();
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> decoder.decode(sign(unknownKey)).block()).isInstanceOf(JwtException.class);
+        }
+
+        assertThat(jwksRequests).hasValue(1);
+    }
+
+    private OidcMetadataCache newCache() {
+        return new OidcMetadataCache(issuerUri, properties, WebClient.create());
+    }
+
+    private static ReactiveJwtDecoder decoder(OidcMetadataCache cache) {
+        return NimbusReactiveJwtDecoder.withJwkSource(cache.jwkSource()).build();
+    }
+
+    private String sign(RSAKey key) throws JOSEException {
+        SignedJWT jwt = new SignedJWT(
+            new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(),
+            new JWTClaimsSet.Builder()
+                .issuer(issuerUri)
+                .subject("johndoe")
+                .expirationTime(Date.from(Instant.now().plus(5, ChronoUnit.MINUTES)))
+                .build()
+        );
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+
+    private void respond(HttpExchange exchange, String json) throws IOException {
+        if (!available) {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
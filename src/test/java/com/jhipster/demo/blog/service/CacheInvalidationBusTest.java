@@ -0,0 +1,213 @@
+package com.jhipster.demo.blog.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.jhipster.demo.blog.config.ApplicationProperties;
+import com.jhipster.demo.blog.domain.Post;
+import com.jhipster.demo.blog.domain.Tag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+/**
+ * Tests for {@link CacheInvalidationBus}, with two instances exchanging invalidations over the loopback interface.
+ */
+class CacheInvalidationBusTest {
+
+    private static final String KEY = "shared-secret";
+
+    private SimpleMeterRegistry meterRegistryA;
+    private SimpleMeterRegistry meterRegistryB;
+    private CacheInvalidationBus busA;
+    private CacheInvalidationBus busB;
+
+    @BeforeEach
+    public void init() throws IOException {
+        int portA = freePort();
+        int portB = freePort();
+        meterRegistryA = new SimpleMeterRegistry();
+        meterRegistryB = new SimpleMeterRegistry();
+        busA = new CacheInvalidationBus(properties(portA, portB), meterRegistryA);
+        busB = new CacheInvalidationBus(properties(portB, portA), meterRegistryB);
+        busA.start();
+        busB.start();
+    }
+
+    @AfterEach
+    public void destroy() {
+        busA.stop();
+        busB.stop();
+    }
+
+    private static int freePort() throws IOException {
+        try (DatagramSocket socket = new DatagramSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static ApplicationProperties properties(int port, int peerPort) {
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getCacheInvalidation().setEnabled(true);
+        properties.getCacheInvalidation().setPort(port);
+        properties.getCacheInvalidation().setPeers(List.of("127.0.0.1:" + peerPort));
+        properties.getCacheInvalidation().setBatchWindow(Duration.ofMillis(10));
+        properties.getCacheInvalidation().setKey(KEY);
+        return properties;
+    }
+
+    @Test
+    void entityEvictedOnOneInstanceIsEvictedOnTheOther() throws InterruptedException {
+        EntityCache cacheA = new EntityCache(new ApplicationProperties(), meterRegistryA, busA);
+        EntityCache cacheB = new EntityCache(new ApplicationProperties(), meterRegistryB, busB);
+        Tag tag = new Tag().name("AAAAAAAAAA");
+        tag.setId(1L);
+        Tag updatedTag = new Tag().name("BBBBBBBBBB");
+        updatedTag.setId(1L);
+        Supplier<Mono<Tag>> loadUpdated = () -> Mono.just(updatedTag);
+
+        cacheB.get(Tag.class, 1L, () -> Mono.just(tag)).block();
+        assertThat(cacheB.get(Tag.class, 1L, loadUpdated).block()).isSameAs(tag);
+
+        cacheA.evict(Tag.class, 1L).block();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cacheB.get(Tag.class, 1L, loadUpdated).block() != updatedTag && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(cacheB.get(Tag.class, 1L, loadUpdated).block()).isSameAs(updatedTag);
+        assertThat(meterRegistryB.get("cache.invalidation.keys").tag("direction", "received").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void countChangedOnOneInstanceIsDroppedOnTheOther() throws InterruptedException {
+        EntityCountCache countCacheA = new EntityCountCache(new ApplicationProperties(), busA);
+        EntityCountCache countCacheB = new EntityCountCache(new ApplicationProperties(), busB);
+        countCacheB.count(Tag.class, "", () -> Mono.just(10L)).block();
+        countCacheB.count(Post.class, "", () -> Mono.just(20L)).block();
+
+        countCacheA.recordInsert(Tag.class).block();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (countCacheB.getIfPresent(Tag.class, "") != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(countCacheB.getIfPresent(Tag.class, "")).isNull();
+        assertThat(countCacheB.getIfPresent(Post.class, "")).isEqualTo(20);
+    }
+
+    @Test
+    void invalidationsOfABatchAreCoalesced() throws InterruptedException {
+        List<Object> received = Collections.synchronizedList(new ArrayList<>());
+        busB.subscribe("entity.tag", received::add);
+
+        busA.publish("entity.tag", 1L);
+        busA.publish("entity.tag", 1L);
+        busA.publish("entity.tag", 2L);
+        busA.flush();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (received.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(received).containsExactly(1L, 2L);
+        assertThat(meterRegistryA.get("cache.invalidation.keys").tag("direction", "sent").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void wholeCacheInvalidationReplacesTheKeys() throws InterruptedException {
+        List<Object> received = Collections.synchronizedList(new ArrayList<>());
+        busB.subscribe("entity.post", received::add);
+
+        busA.publish("entity.post", 1L);
+        busA.publish("entity.post", null);
+        busA.publish("entity.post", 2L);
+        busA.flush();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (received.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(received).containsExactly((Object) null);
+    }
+
+    @Test
+    void largeBatchesAreSplitIntoDatagrams() throws IOException {
+        Map<String, Set<Object>> batch = new LinkedHashMap<>();
+        Set<Object> keys = new LinkedHashSet<>();
+        for (long id = 0; id < 500; id++) {
+            keys.add(id);
+        }
+        batch.put("entity.post", keys);
+        batch.put("user", new LinkedHashSet<>(List.of("john", "jane")));
+
+        List<ByteBuffer> datagrams = busA.encode(batch);
+
+        assertThat(datagrams).hasSizeGreaterThan(1);
+        assertThat(datagrams).allMatch(datagram -> datagram.remaining() <= CacheInvalidationBus.MAX_DATAGRAM_SIZE);
+
+        List<Object> received = new ArrayList<>();
+        busB.subscribe("entity.post", received::add);
+        busB.subscribe("user", received::add);
+        for (ByteBuffer datagram : datagrams) {
+            busB.apply(datagram);
+        }
+        assertThat(received).hasSize(502).endsWith("john", "jane");
+    }
+
+    @Test
+    void ownInvalidationsAreIgnored() throws IOException {
+        List<Object> received = new ArrayList<>();
+        busA.subscribe("entity.tag", received::add);
+
+        for (ByteBuffer datagram : busA.encode(Map.of("entity.tag", Set.of(1L)))) {
+            busA.apply(datagram);
+        }
+
+        assertThat(received).isEmpty();
+    }
+
+    @Test
+    void invalidationsSignedWithAnotherKeyAreIgnored() throws IOException {
+        List<Object> received = new ArrayList<>();
+        busB.subscribe("entity.tag", received::add);
+        ApplicationProperties otherProperties = new ApplicationProperties();
+        otherProperties.getCacheInvalidation().setKey("other-secret");
+        CacheInvalidationBus otherBus = new CacheInvalidationBus(otherProperties, new SimpleMeterRegistry());
+
+        for (ByteBuffer datagram : otherBus.encode(Map.of("entity.tag", Set.of(1L)))) {
+            busB.apply(datagram);
+        }
+        // a datagram of a valid sender, altered on its way
+        for (ByteBuffer datagram : busA.encode(Map.of("entity.tag", Set.of(2L)))) {
+            datagram.put(datagram.limit() - 1, (byte) ~datagram.get(datagram.limit() - 1));
+            busB.apply(datagram);
+        }
+
+        assertThat(received).isEmpty();
+        assertThat(meterRegistryB.get("cache.invalidation.datagrams").tag("direction", "rejected").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void keyIsRequiredToStart() {
+        ApplicationProperties properties = properties(0, 0);
+        properties.getCacheInvalidation().setKey(null);
+        CacheInvalidationBus bus = new CacheInvalidationBus(properties, new SimpleMeterRegistry());
+
+        assertThatThrownBy(bus::start).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,99 @@
+package com.jhipster.demo.blog.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jhipster.demo.blog.config.DatabaseConfiguration;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.core.DefaultReactiveDataAccessStrategy;
+import org.springframework.data.r2dbc.dialect.H2Dialect;
+import org.springframework.data.r2dbc.mapping.SettableValue;
+import reactor.core.publisher.Flux;
+
+/**
+ * Unit tests for {@link ColumnConverter}.
+ */
+class ColumnConverterTest {
+
+    private ConnectionFactory connectionFactory;
+    private ColumnConverter converter;
+
+    @BeforeEach
+    public void init() {
+        connectionFactory = ConnectionFactories.get("r2dbc:h2:mem:///column-converter");
+        List<Object> converters = List.of(
+            DatabaseConfiguration.InstantWriteConverter.INSTANCE,
+            DatabaseConfiguration.InstantReadConverter.INSTANCE
+        );
+        DefaultReactiveDataAccessStrategy dataAccess = new DefaultReactiveDataAccessStrategy(H2Dialect.INSTANCE, converters);
+        converter = new ColumnConverter(new R2dbcCustomConversions(converters), dataAccess);
+    }
+
+    @Test
+    void sameColumnNameWithAnotherTypeIsConverted() {
+        assertThat(ids("SELECT CAST(1 AS BIGINT) AS e_id")).containsExactly(1L);
+        // the same alias in another query, which the driver can't read as the target type
+        assertThat(ids("SELECT '2' AS e_id")).containsExactly(2L);
+        assertThat(ids("SELECT CAST(3 AS BIGINT) AS e_id")).containsExactly(3L);
+    }
+
+    @Test
+    void columnsAreResolvedOncePerResult() {
+        AtomicInteger resolutions = new AtomicInteger();
+        ColumnConverter.ColumnResolver<ColumnConverter.ColumnReader<Long>> resolver = converter.resolver(
+            (metadata, prefix) -> {
+                resolutions.incrementAndGet();
+                return converter.reader(metadata, prefix + "_id", Long.class);
+            }
+        );
+
+        List<Long> ids = select(
+            "SELECT X AS e_id FROM SYSTEM_RANGE(1, 3) ORDER BY X",
+            (row, metadata) -> resolver.get(metadata, "e").read(row)
+        );
+        List<Long> otherIds = select("SELECT CAST(4 AS BIGINT) AS e_id", (row, metadata) -> resolver.get(metadata, "e").read(row));
+
+        assertThat(ids).containsExactly(1L, 2L, 3L);
+        assertThat(otherIds).containsExactly(4L);
+        assertThat(resolutions).hasValue(2);
+    }
+
+    @Test
+    void valuesAreWrittenWithTheWritingConversions() {
+        Instant date = Instant.parse("2021-01-02T03:04:05Z");
+
+        SettableValue value = converter.toColumn(date, Instant.class);
+        SettableValue empty = converter.toColumn(null, Instant.class);
+
+        assertThat(value.getValue()).isInstanceOf(LocalDateTime.class);
+        assertThat(empty.hasValue()).isFalse();
+        assertThat(empty.getType()).isEqualTo(LocalDateTime.class);
+        assertThat(converter.toColumn("name", String.class).getValue()).isEqualTo("name");
+    }
+
+    private List<Long> ids(String sql) {
+        return select(sql, (row, metadata) -> converter.fromRow(row, metadata, "e_id", Long.class));
+    }
+
+    private <T> List<T> select(String sql, BiFunction<Row, RowMetadata, T> mapper) {
+        return Flux
+            .usingWhen(
+                connectionFactory.create(),
+                connection -> Flux.from(connection.createStatement(sql).execute()).flatMap(result -> result.map(mapper)),
+                Connection::close
+            )
+            .collectList()
+            .block();
+    }
+}
@@ -0,0 +1,164 @@
+package com.jhipster.demo.blog.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jhipster.demo.blog.config.ApplicationProperties;
+import com.jhipster.demo.blog.config.RoutingConnectionFactory;
+import com.jhipster.demo.blog.domain.Blog;
+import com.jhipster.demo.blog.domain.Tag;
+import com.jhipster.demo.blog.domain.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.util.context.Context;
+
+/**
+ * Unit tests for {@link EntityCache}.
+ */
+class EntityCacheTest {
+
+    private static final Duration READ_YOUR_WRITES_WINDOW = Duration.ofMillis(300);
+
+    private EntityCache entityCache;
+    private List<MonoProcessor<Tag>> loads;
+    private Supplier<Mono<Tag>> loader;
+
+    @BeforeEach
+    public void init() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        entityCache = new EntityCache(applicationProperties, meterRegistry, new CacheInvalidationBus(applicationProperties, meterRegistry));
+        loads = new ArrayList<>();
+        loader =
+            () -> {
+                MonoProcessor<Tag> load = MonoProcessor.create();
+                loads.add(load);
+                return load;
+            };
+    }
+
+    @Test
+    void loadStartedAfterAnInvalidationStaysShared() {
+        CompletableFuture<Tag> first = entityCache.get(Tag.class, 1L, loader).toFuture();
+        entityCache.evict(Tag.class, 1L).block();
+        CompletableFuture<Tag> second = entityCache.get(Tag.class, 1L, loader).toFuture();
+
+        // the first load completes while the second one is still running
+        loads.get(0).onNext(tag("old"));
+        CompletableFuture<Tag> third = entityCache.get(Tag.class, 1L, loader).toFuture();
+        loads.get(1).onNext(tag("new"));
+
+        assertThat(loads).hasSize(2);
+        assertThat(first.join().getName()).isEqualTo("old");
+        assertThat(second.join().getName()).isEqualTo("new");
+        assertThat(third.join().getName()).isEqualTo("new");
+        assertThat(entityCache.get(Tag.class, 1L, loader).block().getName()).isEqualTo("new");
+    }
+
+    @Test
+    void entitiesEmbeddingAnInvalidatedEntityAreDropped() {
+        entityCache.addEmbedded(Blog.class, User.class);
+        Blog blog = new Blog().name("blog");
+        Blog updatedBlog = new Blog().name("updated blog");
+
+        entityCache.get(Blog.class, 1L, () -> Mono.just(blog)).block();
+        assertThat(entityCache.get(Blog.class, 1L, () -> Mono.just(updatedBlog)).block()).isSameAs(blog);
+
+        entityCache.evict(User.class, "user").block();
+
+        assertThat(entityCache.get(Blog.class, 1L, () -> Mono.just(updatedBlog)).block()).isSameAs(updatedBlog);
+    }
+
+    @Test
+    void entityLoadedFromALaggingReplicaIsNotCached() throws InterruptedException {
+        ConnectionFactory primary = database("entity-cache-primary");
+        ConnectionFactory replica = database("entity-cache-replica");
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RoutingConnectionFactory routing = new RoutingConnectionFactory(
+            primary,
+            List.of(replica),
+            READ_YOUR_WRITES_WINDOW,
+            Duration.ofHours(1),
+            meterRegistry
+        );
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getDatabase().getReplicas().setUrls(List.of("r2dbc:h2:mem:///entity-cache-replica"));
+        applicationProperties.getDatabase().getReplicas().setReadYourWritesWindow(READ_YOUR_WRITES_WINDOW);
+        EntityCache replicatedCache = new EntityCache(
+            applicationProperties,
+            meterRegistry,
+            new CacheInvalidationBus(applicationProperties, meterRegistry)
+        );
+        Supplier<Mono<Tag>> readOnReplica = () -> readTag(routing);
+        try {
+            assertThat(replicatedCache.get(Tag.class, 1L, readOnReplica).block().getName()).isEqualTo("old");
+
+            execute(primary, "UPDATE tag SET name = 'new' WHERE id = 1");
+            replicatedCache.evict(Tag.class, 1L).block();
+            // the replica didn't replicate the update yet
+            assertThat(replicatedCache.get(Tag.class, 1L, readOnReplica).block().getName()).isEqualTo("old");
+
+            execute(replica, "UPDATE tag SET name = 'new' WHERE id = 1");
+            assertThat(replicatedCache.get(Tag.class, 1L, readOnReplica).block().getName()).isEqualTo("new");
+
+            // out of the window, the loaded entity is cached again
+            Thread.sleep(READ_YOUR_WRITES_WINDOW.toMillis() + 50);
+            replicatedCache.get(Tag.class, 1L, readOnReplica).block();
+            execute(replica, "UPDATE tag SET name = 'other' WHERE id = 1");
+            assertThat(replicatedCache.get(Tag.class, 1L, readOnReplica).block().getName()).isEqualTo("new");
+        } finally {
+            routing.dispose();
+        }
+    }
+
+    private static ConnectionFactory database(String name) {
+        ConnectionFactory connectionFactory = ConnectionFactories.get("r2dbc:h2:mem:///" + name + ";DB_CLOSE_DELAY=-1");
+        execute(connectionFactory, "DROP TABLE IF EXISTS tag");
+        execute(connectionFactory, "CREATE TABLE tag (id BIGINT PRIMARY KEY, name VARCHAR(255))");
+        execute(connectionFactory, "INSERT INTO tag VALUES (1, 'old')");
+        return connectionFactory;
+    }
+
+    private static void execute(ConnectionFactory connectionFactory, String sql) {
+        Mono
+            .usingWhen(
+                connectionFactory.create(),
+                connection -> Flux.from(connection.createStatement(sql).execute()).flatMap(result -> result.getRowsUpdated()).then(),
+                Connection::close
+            )
+            .block();
+    }
+
+    private static Mono<Tag> readTag(ConnectionFactory connectionFactory) {
+        return Mono
+            .usingWhen(
+                connectionFactory.create(),
+                connection ->
+                    Flux
+                        .from(connection.createStatement("SELECT name FROM tag WHERE id = 1").execute())
+                        .flatMap(result -> result.map((row, metadata) -> tag(row.get("name", String.class))))
+                        .next(),
+                Connection::close
+            )
+            // a read-only transaction, which reads the replica
+            .subscriberContext(Context.of(RoutingConnectionFactory.READ_ONLY, true));
+    }
+
+    private static Tag tag(String name) {
+        Tag tag = new Tag();
+        tag.setId(1L);
+        tag.setName(name);
+        return tag;
+    }
+}
@@ -0,0 +1,201 @@
+package com.jhipster.demo.blog.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.jhipster.demo.blog.config.ApplicationProperties;
+import com.jhipster.demo.blog.domain.Post;
+import com.jhipster.demo.blog.domain.Tag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.AbstractReactiveTransactionManager;
+import org.springframework.transaction.reactive.GenericReactiveTransaction;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+/**
+ * Unit tests for {@link EntityCountCache}.
+ */
+class EntityCountCacheTest {
+
+    private EntityCountCache countCache;
+    private AtomicLong rows;
+    private AtomicInteger queries;
+    private Supplier<Mono<Long>> loader;
+
+    @BeforeEach
+    public void init() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        CacheInvalidationBus invalidationBus = new CacheInvalidationBus(applicationProperties, new SimpleMeterRegistry());
+        countCache = new EntityCountCache(applicationProperties, invalidationBus);
+        rows = new AtomicLong(10);
+        queries = new AtomicInteger();
+        loader = () -> Mono.fromSupplier(() -> {
+            queries.incrementAndGet();
+            return rows.get();
+        });
+    }
+
+    @Test
+    void countIsLoadedOnce() {
+        assertThat(countCache.count(Post.class, "", loader).block()).isEqualTo(10);
+        assertThat(countCache.count(Post.class, "", loader).block()).isEqualTo(10);
+        assertThat(queries).hasValue(1);
+    }
+
+    @Test
+    void countFollowsInsertsAndDeletes() {
+        countCache.count(Post.class, "", loader).block();
+
+        countCache.recordInsert(Post.class).block();
+        countCache.recordInsert(Post.class).block();
+        countCache.recordDelete(Post.class, 1).block();
+        countCache.recordInsert(Tag.class).block();
+
+        assertThat(countCache.count(Post.class, "", loader).block()).isEqualTo(11);
+        assertThat(queries).hasValue(1);
+    }
+
+    @Test
+    void filteredCountIsDroppedOnChange() {
+        countCache.count(Post.class, "title = 'a'", loader).block();
+
+        countCache.recordInsert(Post.class).block();
+        rows.set(3);
+
+        assertThat(countCache.count(Post.class, "title = 'a'", loader).block()).isEqualTo(3);
+        assertThat(queries).hasValue(2);
+    }
+
+    @Test
+    void refreshReloadsCounts() {
+        countCache.count(Post.class, "", loader).block();
+        rows.set(42);
+
+        countCache.refresh().block();
+
+        assertThat(countCache.count(Post.class, "", loader).block()).isEqualTo(42);
+    }
+
+    @Test
+    void insertDuringRefreshIsKept() {
+        List<MonoProcessor<Long>> loads = new ArrayList<>();
+        Supplier<Mono<Long>> slowLoader = () -> {
+            MonoProcessor<Long> load = MonoProcessor.create();
+            loads.add(load);
+            return load;
+        };
+        CompletableFuture<Long> initial = countCache.count(Post.class, "", slowLoader).toFuture();
+        loads.get(0).onNext(10L);
+        assertThat(initial.join()).isEqualTo(10);
+
+        CompletableFuture<Void> refresh = countCache.refresh().toFuture();
+        countCache.recordInsert(Post.class).block();
+        // loaded before the insert
+        loads.get(1).onNext(10L);
+        refresh.join();
+
+        assertThat(countCache.getIfPresent(Post.class, "")).isEqualTo(11);
+    }
+
+    @Test
+    void countLoadedDuringAChangeIsNotStored() {
+        MonoProcessor<Long> load = MonoProcessor.create();
+        CompletableFuture<Long> count = countCache.count(Post.class, "", () -> load).toFuture();
+
+        countCache.recordDelete(Post.class, 1).block();
+        load.onNext(10L);
+
+        assertThat(count.join()).isEqualTo(10);
+        assertThat(countCache.getIfPresent(Post.class, "")).isNull();
+    }
+
+    @Test
+    void totalSelectedDuringAChangeIsNotStored() {
+        countCache.count(Post.class, "", loader).block();
+        long generation = countCache.currentGeneration(Post.class);
+
+        // the insert runs while the page with the total is selected
+        countCache.recordInsert(Post.class).block();
+        countCache.put(Post.class, "", generation, 10, loader).block();
+
+        assertThat(countCache.getIfPresent(Post.class, "")).isEqualTo(11);
+    }
+
+    @Test
+    void totalSelectedWithoutChangeIsStored() {
+        long generation = countCache.currentGeneration(Post.class);
+
+        countCache.put(Post.class, "", generation, 7, loader).block();
+
+        assertThat(countCache.getIfPresent(Post.class, "")).isEqualTo(7);
+    }
+
+    @Test
+    void insertIsCountedOnceCommitted() {
+        countCache.count(Post.class, "", loader).block();
+
+        Long countDuringTransaction = transactions()
+            .transactional(countCache.recordInsert(Post.class).then(Mono.fromCallable(() -> countCache.getIfPresent(Post.class, ""))))
+            .block();
+
+        assertThat(countDuringTransaction).isEqualTo(10);
+        assertThat(countCache.getIfPresent(Post.class, "")).isEqualTo(11);
+    }
+
+    @Test
+    void rolledBackInsertIsNotCounted() {
+        countCache.count(Post.class, "", loader).block();
+
+        Mono<Void> failingInsert = countCache.recordInsert(Post.class).then(Mono.error(new IllegalStateException("rollback")));
+        assertThatThrownBy(() -> transactions().transactional(failingInsert).block()).isInstanceOf(IllegalStateException.class);
+
+        assertThat(countCache.getIfPresent(Post.class, "")).isEqualTo(10);
+    }
+
+    private static TransactionalOperator transactions() {
+        return TransactionalOperator.create(
+            new AbstractReactiveTransactionManager() {
+                @Override
+                protected Object doGetTransaction(TransactionSynchronizationManager synchronizationManager) {
+                    return new Object();
+                }
+
+                @Override
+                protected Mono<Void> doBegin(
+                    TransactionSynchronizationManager synchronizationManager,
+                    Object transaction,
+                    TransactionDefinition definition
+                ) {
+                    return Mono.empty();
+                }
+
+                @Override
+                protected Mono<Void> doCommit(
+                    TransactionSynchronizationManager synchronizationManager,
+                    GenericReactiveTransaction status
+                ) {
+                    return Mono.empty();
+                }
+
+                @Override
+                protected Mono<Void> doRollback(
+                    TransactionSynchronizationManager synchronizationManager,
+                    GenericReactiveTransaction status
+                ) {
+                    return Mono.empty();
+                }
+            }
+        );
+    }
+}
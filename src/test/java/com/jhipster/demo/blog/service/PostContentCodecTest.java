@@ -0,0 +1,84 @@
+package com.jhipster.demo.blog.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.jhipster.demo.blog.config.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link PostContentCodec}.
+ */
+class PostContentCodecTest {
+
+    private static final String TEXT = "Le café est prêt, 🎉 ! ".repeat(500);
+
+    private SimpleMeterRegistry meterRegistry;
+    private PostContentCodec codec;
+
+    @BeforeEach
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        codec = new PostContentCodec(new ApplicationProperties(), meterRegistry);
+    }
+
+    @Test
+    void compressibleContentIsDeflated() {
+        byte[] data = codec.encode(TEXT);
+
+        assertThat(data[3]).isEqualTo(PostContentCodec.CODEC_DEFLATE);
+        assertThat(data.length).isLessThan(TEXT.getBytes(StandardCharsets.UTF_8).length / 10);
+        assertThat(codec.decode(data)).isEqualTo(TEXT);
+    }
+
+    @Test
+    void incompressibleContentIsStoredAsIs() {
+        String text = "Hi!";
+
+        byte[] data = codec.encode(text);
+
+        assertThat(data[3]).isEqualTo(PostContentCodec.CODEC_NONE);
+        assertThat(codec.decode(data)).isEqualTo(text);
+        assertThat(codec.decode(codec.encode(""))).isEmpty();
+    }
+
+    @Test
+    void prefixIsDecodedFromTheBeginningOfTheData() {
+        byte[] data = codec.encode(TEXT);
+
+        assertThat(codec.decodePrefix(data, 200)).isEqualTo(TEXT.substring(0, 200));
+        assertThat(TEXT).startsWith(codec.decodePrefix(Arrays.copyOf(data, 64), 200));
+    }
+
+    @Test
+    void prefixDoesNotCutCharacters() {
+        byte[] data = codec.encode("🎉🎉");
+        // the header, the first character and half of the second one
+        byte[] truncated = Arrays.copyOf(data, PostContentCodec.HEADER_LENGTH + 6);
+
+        assertThat(data[3]).isEqualTo(PostContentCodec.CODEC_NONE);
+        assertThat(codec.decodePrefix(truncated, 10)).isEqualTo("🎉");
+    }
+
+    @Test
+    void invalidDataIsRejected() {
+        assertThatThrownBy(() -> codec.decode("plain text".getBytes(StandardCharsets.UTF_8)))
+            .isInstanceOf(IllegalArgumentException.class);
+        byte[] data = codec.encode(TEXT);
+        assertThatThrownBy(() -> codec.decode(Arrays.copyOf(data, data.length / 2))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void sizesAreRecorded() {
+        codec.encode(TEXT);
+
+        assertThat(meterRegistry.get("post.content.size").tag("form", "original").summary().totalAmount())
+            .isEqualTo(TEXT.getBytes(StandardCharsets.UTF_8).length);
+        assertThat(meterRegistry.get("post.content.size").tag("form", "stored").summary().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("post.content.codec").tag("operation", "encode").timer().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,114 @@
+package com.jhipster.demo.blog.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jhipster.demo.blog.config.ApplicationProperties;
+import com.jhipster.demo.blog.config.RoutingConnectionFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Unit tests for {@link QueryResultCache}, with two in-memory H2 databases standing for the primary and a lagging replica.
+ */
+class QueryResultCacheTest {
+
+    private static final Duration READ_YOUR_WRITES_WINDOW = Duration.ofMillis(300);
+
+    private static final String SELECT_NAMES = "SELECT name FROM tag ORDER BY id";
+
+    private ConnectionFactory primary;
+    private ConnectionFactory replica;
+    private RoutingConnectionFactory routing;
+    private QueryResultCache queryCache;
+
+    @BeforeEach
+    public void init() {
+        primary = database("query-cache-primary");
+        replica = database("query-cache-replica");
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        routing = new RoutingConnectionFactory(primary, List.of(replica), READ_YOUR_WRITES_WINDOW, Duration.ofHours(1), meterRegistry);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getDatabase().getReplicas().setUrls(List.of("r2dbc:h2:mem:///query-cache-replica"));
+        applicationProperties.getDatabase().getReplicas().setReadYourWritesWindow(READ_YOUR_WRITES_WINDOW);
+        CacheInvalidationBus invalidationBus = new CacheInvalidationBus(applicationProperties, meterRegistry);
+        queryCache = new QueryResultCache(applicationProperties, meterRegistry, invalidationBus);
+    }
+
+    @AfterEach
+    public void destroy() {
+        routing.dispose();
+    }
+
+    @Test
+    void resultLoadedFromALaggingReplicaIsNotCached() throws InterruptedException {
+        assertThat(names()).containsExactly("old");
+
+        execute(primary, "UPDATE tag SET name = 'new' WHERE id = 1");
+        queryCache.invalidate("tag").block();
+        // the replica didn't replicate the update yet
+        assertThat(names()).containsExactly("old");
+
+        execute(replica, "UPDATE tag SET name = 'new' WHERE id = 1");
+        assertThat(names()).containsExactly("new");
+
+        // out of the window, the result is cached again
+        Thread.sleep(READ_YOUR_WRITES_WINDOW.toMillis() + 50);
+        names();
+        execute(replica, "UPDATE tag SET name = 'other' WHERE id = 1");
+        assertThat(names()).containsExactly("new");
+    }
+
+    private List<String> names() {
+        BiFunction<Row, RowMetadata, String> mapper = (row, metadata) -> row.get("name", String.class);
+        return queryCache
+            .query(
+                SELECT_NAMES,
+                Collections.emptyList(),
+                mapper,
+                copier ->
+                    Flux
+                        .usingWhen(
+                            routing.create(),
+                            connection ->
+                                Flux.from(connection.createStatement(SELECT_NAMES).execute()).flatMap(result -> result.map(copier)),
+                            Connection::close
+                        )
+                        // a read-only transaction, which reads the replica
+                        .subscriberContext(Context.of(RoutingConnectionFactory.READ_ONLY, true))
+            )
+            .collectList()
+            .block();
+    }
+
+    private static ConnectionFactory database(String name) {
+        ConnectionFactory connectionFactory = ConnectionFactories.get("r2dbc:h2:mem:///" + name + ";DB_CLOSE_DELAY=-1");
+        execute(connectionFactory, "DROP TABLE IF EXISTS tag");
+        execute(connectionFactory, "CREATE TABLE tag (id BIGINT PRIMARY KEY, name VARCHAR(255))");
+        execute(connectionFactory, "INSERT INTO tag VALUES (1, 'old')");
+        return connectionFactory;
+    }
+
+    private static void execute(ConnectionFactory connectionFactory, String sql) {
+        Mono
+            .usingWhen(
+                connectionFactory.create(),
+                connection -> Flux.from(connection.createStatement(sql).execute()).flatMap(result -> result.getRowsUpdated()).then(),
+                Connection::close
+            )
+            .block();
+    }
+}
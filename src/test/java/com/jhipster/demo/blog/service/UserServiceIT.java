@@ -4,16 +4,21 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import com.jhipster.demo.blog.IntegrationTest;
 import com.jhipster.demo.blog.config.Constants;
+import com.jhipster.demo.blog.domain.Authority;
 import com.jhipster.demo.blog.domain.User;
 import com.jhipster.demo.blog.repository.UserRepository;
 import com.jhipster.demo.blog.security.AuthoritiesConstants;
 import com.jhipster.demo.blog.service.dto.AdminUserDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.ZoneOffset;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,6 +29,7 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
 import org.springframework.security.oauth2.core.user.OAuth2User;
+import reactor.core.publisher.Flux;
 
 /**
  * Integration tests for {@link UserService}.
@@ -49,6 +55,9 @@ class UserServiceIT {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private User user;
 
     private Map<String, Object> userDetails;
@@ -141,8 +150,99 @@ class UserServiceIT {
         assertThat(userDTO.getLangKey()).isEqualTo("en");
     }
 
+    @Test
+    void testUserWithAuthoritiesIsCachedUntilSaved() {
+        user.setId(UUID.randomUUID().toString());
+        userRepository.create(user).block();
+        double loadsBefore = userCacheLoads();
+
+        // Concurrent misses share a single load
+        List<User> users = Flux.range(0, 10).flatMap(i -> userService.getUserWithAuthoritiesByLogin(DEFAULT_LOGIN)).collectList().block();
+
+        assertThat(users).hasSize(10).allMatch(found -> DEFAULT_FIRSTNAME.equals(found.getFirstName()));
+        assertThat(userCacheLoads()).isEqualTo(loadsBefore + 1);
+
+        // Saving the user invalidates the cached one
+        user.setFirstName("jane");
+        userService.saveUser(user).block();
+
+        assertThat(userService.getUserWithAuthoritiesByLogin(DEFAULT_LOGIN).block().getFirstName()).isEqualTo("jane");
+        assertThat(userCacheLoads()).isEqualTo(loadsBefore + 2);
+    }
+
+    @Test
+    void testUserSyncIsSkippedUntilClaimsChange() {
+        double performedBefore = userSyncs("performed");
+        double skippedBefore = userSyncs("skipped");
+
+        // Concurrent synchronizations of the same claims share a single run
+        List<AdminUserDTO> userDTOs = Flux
+            .range(0, 10)
+            .flatMap(i -> userService.getUserFromAuthentication(createMockOAuth2AuthenticationToken(userDetails)))
+            .collectList()
+            .block();
+
+        assertThat(userDTOs).hasSize(10).allMatch(found -> DEFAULT_FIRSTNAME.equals(found.getFirstName()));
+        assertThat(userSyncs("performed")).isEqualTo(performedBefore + 1);
+        assertThat(userRepository.findOneByLogin(DEFAULT_LOGIN).block()).isNotNull();
+
+        // The same claims again skip the synchronization
+        userService.getUserFromAuthentication(createMockOAuth2AuthenticationToken(userDetails)).block();
+
+        assertThat(userSyncs("performed")).isEqualTo(performedBefore + 1);
+        assertThat(userSyncs("skipped")).isEqualTo(skippedBefore + 1);
+
+        // Changed claims are synchronized
+        userDetails.put("given_name", "jane");
+        userService.getUserFromAuthentication(createMockOAuth2AuthenticationToken(userDetails)).block();
+
+        assertThat(userSyncs("performed")).isEqualTo(performedBefore + 2);
+        User synced = userRepository.findOneByLogin(DEFAULT_LOGIN).block();
+        assertThat(synced.getFirstName()).isEqualTo("jane");
+        assertThat(synced.getLastName()).isEqualTo(DEFAULT_LASTNAME);
+    }
+
+    @Test
+    void testUserAuthoritiesAreSyncedFromIdP() {
+        userService
+            .getUserFromAuthentication(createMockOAuth2AuthenticationToken(userDetails, AuthoritiesConstants.USER, "ROLE_EDITOR"))
+            .block();
+
+        assertThat(userService.getAuthorities().collectList().block()).contains(AuthoritiesConstants.USER, "ROLE_EDITOR");
+        assertThat(authorityNames(userRepository.findOneWithAuthoritiesByLogin(DEFAULT_LOGIN).block()))
+            .containsExactlyInAnyOrder(AuthoritiesConstants.USER, "ROLE_EDITOR");
+
+        // An authority removed in the IdP is removed from the user
+        userService.getUserFromAuthentication(createMockOAuth2AuthenticationToken(userDetails, AuthoritiesConstants.USER)).block();
+
+        assertThat(authorityNames(userRepository.findOneWithAuthoritiesByLogin(DEFAULT_LOGIN).block()))
+            .containsExactly(AuthoritiesConstants.USER);
+        assertThat(userService.getAuthorities().collectList().block()).contains("ROLE_EDITOR");
+    }
+
+    private static List<String> authorityNames(User user) {
+        return user.getAuthorities().stream().map(Authority::getName).collect(Collectors.toList());
+    }
+
+    private double userSyncs(String result) {
+        Counter syncs = meterRegistry.find("user.sync").tag("result", result).counter();
+        return syncs != null ? syncs.count() : 0;
+    }
+
+    private double userCacheLoads() {
+        Counter loads = meterRegistry.find("cache.loads").tag("cache", "user").counter();
+        return loads != null ? loads.count() : 0;
+    }
+
     private OAuth2AuthenticationToken createMockOAuth2AuthenticationToken(Map<String, Object> userDetails) {
-        Collection<GrantedAuthority> authorities = Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.ANONYMOUS));
+        return createMockOAuth2AuthenticationToken(userDetails, AuthoritiesConstants.ANONYMOUS);
+    }
+
+    private OAuth2AuthenticationToken createMockOAuth2AuthenticationToken(Map<String, Object> userDetails, String... authorityNames) {
+        Collection<GrantedAuthority> authorities = Arrays
+            .stream(authorityNames)
+            .map(SimpleGrantedAuthority::new)
+            .collect(Collectors.toList());
         UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = new UsernamePasswordAuthenticationToken(
             "anonymous",
             "anonymous",
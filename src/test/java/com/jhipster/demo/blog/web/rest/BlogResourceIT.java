@@ -9,6 +9,7 @@ import com.jhipster.demo.blog.IntegrationTest;
 import com.jhipster.demo.blog.domain.Blog;
 import com.jhipster.demo.blog.repository.BlogRepository;
 import com.jhipster.demo.blog.service.EntityManager;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Duration;
 import java.util.List;
 import org.junit.jupiter.api.AfterEach;
@@ -46,6 +47,9 @@ class BlogResourceIT {
     @Autowired
     private WebTestClient webTestClient;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private Blog blog;
 
     /**
@@ -230,6 +234,55 @@ class BlogResourceIT {
             .value(hasItem(DEFAULT_HANDLE));
     }
 
+    @Test
+    void getAllBlogsIsCachedUntilABlogIsUpdated() throws Exception {
+        // Initialize the database
+        blogRepository.save(blog).block();
+
+        // The second request is served from the query cache
+        webTestClient.get().uri("/api/blogs").accept(MediaType.APPLICATION_JSON).exchange().expectStatus().isOk();
+        double hitsBefore = queryCacheHits();
+        webTestClient
+            .get()
+            .uri("/api/blogs")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].name")
+            .value(hasItem(DEFAULT_NAME));
+
+        assertThat(queryCacheHits()).isEqualTo(hitsBefore + 1);
+
+        // The update invalidates the cached list
+        Blog updatedBlog = new Blog().name(UPDATED_NAME).handle(UPDATED_HANDLE);
+        updatedBlog.setId(blog.getId());
+        webTestClient
+            .put()
+            .uri("/api/blogs")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(updatedBlog))
+            .exchange()
+            .expectStatus()
+            .isOk();
+
+        webTestClient
+            .get()
+            .uri("/api/blogs")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].name")
+            .value(hasItem(UPDATED_NAME));
+    }
+
+    private double queryCacheHits() {
+        return meterRegistry.get("cache.gets").tag("cache", "query").tag("result", "hit").functionCounter().count();
+    }
+
     @Test
     void getBlog() {
         // Initialize the database
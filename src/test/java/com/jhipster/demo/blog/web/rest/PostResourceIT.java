@@ -1,6 +1,7 @@
 package com.jhipster.demo.blog.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.*;
@@ -8,13 +9,22 @@ import static org.springframework.security.test.web.reactive.server.SecurityMock
 
 import com.jhipster.demo.blog.IntegrationTest;
 import com.jhipster.demo.blog.domain.Post;
+import com.jhipster.demo.blog.domain.PostSummary;
+import com.jhipster.demo.blog.domain.Tag;
 import com.jhipster.demo.blog.repository.PostRepository;
+import com.jhipster.demo.blog.repository.TagRepository;
 import com.jhipster.demo.blog.service.EntityManager;
+import com.jhipster.demo.blog.service.PostContentMigrationService;
+import java.net.URI;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -25,6 +35,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -56,6 +68,15 @@ class PostResourceIT {
     @Mock
     private PostRepository postRepositoryMock;
 
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private DatabaseClient db;
+
+    @Autowired
+    private PostContentMigrationService postContentMigrationService;
+
     @Autowired
     private EntityManager em;
 
@@ -217,12 +238,84 @@ class PostResourceIT {
             .value(hasItem(post.getId().intValue()))
             .jsonPath("$.[*].title")
             .value(hasItem(DEFAULT_TITLE))
-            .jsonPath("$.[*].content")
+            .jsonPath("$.[*].excerpt")
             .value(hasItem(DEFAULT_CONTENT.toString()))
+            .jsonPath("$.[*].content")
+            .doesNotExist()
             .jsonPath("$.[*].date")
             .value(hasItem(DEFAULT_DATE.toString()));
     }
 
+    @Test
+    void getAllPostsWithContent() {
+        // Initialize the database
+        String longContent = DEFAULT_CONTENT.repeat(PostSummary.EXCERPT_LENGTH);
+        postRepository.save(post.content(longContent)).block();
+
+        // The list only carries the beginning of the content
+        webTestClient
+            .get()
+            .uri("/api/posts?sort=id,desc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].excerpt")
+            .value(hasItem(longContent.substring(0, PostSummary.EXCERPT_LENGTH)));
+
+        // Get all the postList with their content
+        webTestClient
+            .get()
+            .uri("/api/posts?content=true&sort=id,desc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(hasItem(post.getId().intValue()))
+            .jsonPath("$.[*].content")
+            .value(hasItem(longContent));
+    }
+
+    @Test
+    void getAllPostsWithEagerRelationships() {
+        // Initialize the database
+        Tag tag = tagRepository.save(new Tag().name(DEFAULT_TITLE)).block();
+        postRepository.save(post.tags(new HashSet<>(List.of(tag)))).block();
+        postRepository.save(createUpdatedEntity(em)).block();
+
+        // Get all the postList with their tags
+        webTestClient
+            .get()
+            .uri("/api/posts?eagerload=true&sort=id,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[0].tags[*].id")
+            .value(contains(tag.getId().intValue()))
+            .jsonPath("$.[1].tags")
+            .isEmpty();
+
+        // Get the post with its tags
+        webTestClient
+            .get()
+            .uri("/api/posts/{id}", post.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.tags[*].name")
+            .value(contains(DEFAULT_TITLE));
+
+        deleteEntities(em);
+        TagResourceIT.deleteEntities(em);
+    }
+
     @SuppressWarnings({ "unchecked" })
     void getAllPostsWithEagerRelationshipsIsEnabled() {
         when(postRepositoryMock.findAllWithEagerRelationships(any())).thenReturn(Flux.empty());
@@ -267,6 +360,108 @@ class PostResourceIT {
             .value(is(DEFAULT_DATE.toString()));
     }
 
+    @Test
+    void getPostWithContentNotMigrated() {
+        // Initialize the database the way it was before post_content existed
+        Long id = db
+            .insert()
+            .into("post")
+            .value("title", DEFAULT_TITLE)
+            .value("content", DEFAULT_CONTENT)
+            .value("date", LocalDateTime.ofInstant(DEFAULT_DATE, ZoneOffset.UTC))
+            .map((row, metadata) -> row.get("id", Long.class))
+            .one()
+            .block();
+
+        // The content is read from the post table until it's migrated
+        webTestClient
+            .get()
+            .uri("/api/posts/{id}", id)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.content")
+            .value(is(DEFAULT_CONTENT));
+
+        postContentMigrationService.migrate().block();
+
+        Long migrated = db
+            .execute("SELECT COUNT(*) FROM post_content WHERE post_id = :id")
+            .bind("id", id)
+            .map((row, metadata) -> row.get(0, Long.class))
+            .one()
+            .block();
+        assertThat(migrated).isEqualTo(1);
+        Long notMigrated = db
+            .execute("SELECT COUNT(*) FROM post WHERE id = :id AND content IS NOT NULL")
+            .bind("id", id)
+            .map((row, metadata) -> row.get(0, Long.class))
+            .one()
+            .block();
+        assertThat(notMigrated).isZero();
+
+        // Get the post and its summary
+        webTestClient
+            .get()
+            .uri("/api/posts/{id}", id)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.content")
+            .value(is(DEFAULT_CONTENT));
+        webTestClient
+            .get()
+            .uri("/api/posts?sort=id,desc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].excerpt")
+            .value(hasItem(DEFAULT_CONTENT));
+    }
+
+    @Test
+    void getPostsWithCursor() {
+        // Initialize the database
+        postRepository.save(createEntity(em)).block();
+        postRepository.save(createUpdatedEntity(em)).block();
+
+        // Get the first page, newest first
+        String link = webTestClient
+            .get()
+            .uri("/api/posts?after=&size=1")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].title")
+            .value(contains(UPDATED_TITLE))
+            .returnResult()
+            .getResponseHeaders()
+            .getFirst(HttpHeaders.LINK);
+        assertThat(link).endsWith("; rel=\"next\"");
+
+        // Follow the next link to the last page
+        webTestClient
+            .get()
+            .uri(URI.create(link.substring(link.indexOf('<') + 1, link.indexOf('>'))))
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .doesNotExist(HttpHeaders.LINK)
+            .expectBody()
+            .jsonPath("$.[*].title")
+            .value(contains(DEFAULT_TITLE));
+    }
+
     @Test
     void getNonExistingPost() {
         // Get the post
@@ -308,6 +503,74 @@ class PostResourceIT {
         assertThat(testPost.getDate()).isEqualTo(UPDATED_DATE);
     }
 
+    @Test
+    void partialUpdatePostKeepsTags() throws Exception {
+        // Initialize the database
+        Tag tag = tagRepository.save(new Tag().name(DEFAULT_TITLE)).block();
+        postRepository.save(post.tags(new HashSet<>(List.of(tag)))).block();
+
+        // Update only the title
+        Post partialUpdatedPost = new Post();
+        partialUpdatedPost.setId(post.getId());
+        partialUpdatedPost.title(UPDATED_TITLE);
+
+        webTestClient
+            .patch()
+            .uri("/api/posts")
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue(TestUtil.convertObjectToJsonBytes(partialUpdatedPost))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.title")
+            .value(is(UPDATED_TITLE))
+            .jsonPath("$.content")
+            .value(is(DEFAULT_CONTENT));
+
+        // Validate the Post and its tags in the database
+        Post testPost = postRepository.findOneWithEagerRelationships(post.getId()).block();
+        assertThat(testPost.getTitle()).isEqualTo(UPDATED_TITLE);
+        assertThat(testPost.getContent()).isEqualTo(DEFAULT_CONTENT);
+        assertThat(testPost.getDate()).isEqualTo(DEFAULT_DATE);
+        assertThat(testPost.getTags()).extracting(Tag::getId).containsExactly(tag.getId());
+
+        deleteEntities(em);
+        TagResourceIT.deleteEntities(em);
+    }
+
+    @Test
+    void updatePostTags() throws Exception {
+        // Initialize the database
+        Tag kept = tagRepository.save(new Tag().name(DEFAULT_TITLE)).block();
+        Tag removed = tagRepository.save(new Tag().name(UPDATED_TITLE)).block();
+        Tag added = tagRepository.save(new Tag().name(DEFAULT_CONTENT + UPDATED_CONTENT)).block();
+        post.tags(new HashSet<>(List.of(kept, removed)));
+        postRepository.save(post).block();
+
+        // Replace one of the tags
+        Post updatedPost = postRepository.findById(post.getId()).block();
+        updatedPost.tags(new HashSet<>(List.of(kept, added)));
+        postRepository.save(updatedPost).block();
+        // saving the same links again skips the existing rows
+        postRepository.save(updatedPost).block();
+
+        // Validate the links in the database
+        Set<Long> tagIds = new HashSet<>(
+            db
+                .execute("SELECT tag_id FROM rel_post__tag WHERE post_id = :postId")
+                .bind("postId", post.getId())
+                .map(row -> row.get(0, Long.class))
+                .all()
+                .collectList()
+                .block()
+        );
+        assertThat(tagIds).containsExactlyInAnyOrder(kept.getId(), added.getId());
+
+        deleteEntities(em);
+        TagResourceIT.deleteEntities(em);
+    }
+
     @Test
     void updateNonExistingPost() throws Exception {
         int databaseSizeBeforeUpdate = postRepository.findAll().collectList().block().size();
@@ -1,6 +1,7 @@
 package com.jhipster.demo.blog.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
 import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.csrf;
@@ -9,8 +10,11 @@ import com.jhipster.demo.blog.IntegrationTest;
 import com.jhipster.demo.blog.domain.Tag;
 import com.jhipster.demo.blog.repository.TagRepository;
 import com.jhipster.demo.blog.service.EntityManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.URI;
 import java.time.Duration;
 import java.util.List;
+import java.util.function.Supplier;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,6 +23,12 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.relational.core.sql.Expressions;
+import org.springframework.data.relational.core.sql.Select;
+import org.springframework.data.relational.core.sql.SelectBuilder.SelectWhere;
+import org.springframework.data.relational.core.sql.Table;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -43,6 +53,9 @@ class TagResourceIT {
     @Autowired
     private WebTestClient webTestClient;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private Tag tag;
 
     /**
@@ -154,6 +167,28 @@ class TagResourceIT {
         assertThat(tagList).hasSize(databaseSizeBeforeTest);
     }
 
+    @Test
+    void readsRunWithoutTransaction() throws Exception {
+        // Initialize the database
+        tagRepository.save(tag).block();
+
+        webTestClient.get().uri("/api/tags?sort=id,desc").accept(MediaType.APPLICATION_JSON).exchange().expectStatus().isOk();
+        webTestClient.get().uri("/api/tags/{id}", tag.getId()).accept(MediaType.APPLICATION_JSON).exchange().expectStatus().isOk();
+
+        assertThat(meterRegistry.get("http.server.requests.transactions").tag("method", "GET").summary().max()).isZero();
+
+        webTestClient
+            .post()
+            .uri("/api/tags")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(createUpdatedEntity(em)))
+            .exchange()
+            .expectStatus()
+            .isCreated();
+
+        assertThat(meterRegistry.get("http.server.requests.transactions").tag("method", "POST").summary().max()).isGreaterThanOrEqualTo(1);
+    }
+
     @Test
     void getAllTags() {
         // Initialize the database
@@ -176,6 +211,72 @@ class TagResourceIT {
             .value(hasItem(DEFAULT_NAME));
     }
 
+    @Test
+    void getAllTagsWithTotalCount() {
+        // Initialize the database
+        tagRepository.save(tag).block();
+        tagRepository.save(createUpdatedEntity(em)).block();
+
+        // Get the first page, the total is selected together with the page
+        webTestClient
+            .get()
+            .uri("/api/tags?page=0&size=1&sort=id,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Total-Count", "2")
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(contains(tag.getId().intValue()));
+
+        // Get a page after the last tag
+        webTestClient
+            .get()
+            .uri("/api/tags?page=5&size=1&sort=id,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Total-Count", "2");
+    }
+
+    @Test
+    void getAllTagsPagesShareTheSelectTemplate() {
+        // Initialize the database
+        tagRepository.save(tag).block();
+        tagRepository.save(createUpdatedEntity(em)).block();
+        Tag lastTag = tagRepository.save(new Tag().name("CCCCCCCCCC")).block();
+
+        // The first requests render the templates, with and without the total count
+        webTestClient.get().uri("/api/tags?page=0&size=2&sort=id,asc").exchange().expectStatus().isOk();
+        webTestClient.get().uri("/api/tags?page=0&size=2&sort=id,asc").exchange().expectStatus().isOk();
+        double hitsBefore = templateCacheGets("hit");
+        double missesBefore = templateCacheGets("miss");
+
+        // Another page of the same shape reuses the template, with its own bound offset
+        webTestClient
+            .get()
+            .uri("/api/tags?page=1&size=2&sort=id,asc")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(contains(lastTag.getId().intValue()));
+
+        assertThat(templateCacheGets("hit")).isEqualTo(hitsBefore + 1);
+        assertThat(templateCacheGets("miss")).isEqualTo(missesBefore);
+
+        // The page size and the offset are bound, not rendered into the SQL
+        Supplier<SelectWhere> selectFrom = () -> Select.builder().select(Expressions.asterisk()).from(Table.create("tag"));
+        EntityManager.PreparedSelect firstPage = em.createSelect(Tag.class, "tag-template", selectFrom, PageRequest.of(0, 7), null);
+        EntityManager.PreparedSelect secondPage = em.createSelect(Tag.class, "tag-template", selectFrom, PageRequest.of(1, 7), null);
+        assertThat(secondPage.getSource()).isEqualTo(firstPage.getSource()).doesNotContain("7");
+    }
+
     @Test
     void getTag() {
         // Initialize the database
@@ -198,6 +299,150 @@ class TagResourceIT {
             .value(is(DEFAULT_NAME));
     }
 
+    @Test
+    void getTagIsCachedUntilUpdated() throws Exception {
+        // Initialize the database
+        tagRepository.save(tag).block();
+
+        webTestClient.get().uri("/api/tags/{id}", tag.getId()).exchange().expectStatus().isOk();
+        double hitsBefore = cacheHits();
+        webTestClient.get().uri("/api/tags/{id}", tag.getId()).exchange().expectStatus().isOk();
+
+        assertThat(cacheHits()).isEqualTo(hitsBefore + 1);
+
+        // The update invalidates the cached tag
+        Tag updatedTag = new Tag().name(UPDATED_NAME);
+        updatedTag.setId(tag.getId());
+        webTestClient
+            .put()
+            .uri("/api/tags")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(updatedTag))
+            .exchange()
+            .expectStatus()
+            .isOk();
+
+        webTestClient
+            .get()
+            .uri("/api/tags/{id}", tag.getId())
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.name")
+            .value(is(UPDATED_NAME));
+    }
+
+    private double templateCacheGets(String result) {
+        return meterRegistry.get("sql.template.cache.gets").tag("result", result).counter().count();
+    }
+
+    private double cacheHits() {
+        return meterRegistry.get("cache.gets").tag("cache", "tag").tag("result", "hit").functionCounter().count();
+    }
+
+    @Test
+    void getTagAmongOthers() {
+        // Initialize the database with more than one tag, so the lookup must be filtered by id
+        tagRepository.save(createUpdatedEntity(em)).block();
+        tagRepository.save(tag).block();
+
+        // Get the tag
+        webTestClient
+            .get()
+            .uri("/api/tags/{id}", tag.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.id")
+            .value(is(tag.getId().intValue()))
+            .jsonPath("$.name")
+            .value(is(DEFAULT_NAME));
+    }
+
+    @Test
+    void getTagsWithCursor() {
+        // Initialize the database
+        tagRepository.save(new Tag().name("cursor-a")).block();
+        tagRepository.save(new Tag().name("cursor-b")).block();
+        tagRepository.save(new Tag().name("cursor-c")).block();
+
+        // Get the first page
+        String link = webTestClient
+            .get()
+            .uri("/api/tags?after=&size=2")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].name")
+            .value(contains("cursor-a", "cursor-b"))
+            .returnResult()
+            .getResponseHeaders()
+            .getFirst(HttpHeaders.LINK);
+        assertThat(link).endsWith("; rel=\"next\"");
+
+        // Follow the next link to the last page
+        webTestClient
+            .get()
+            .uri(URI.create(link.substring(link.indexOf('<') + 1, link.indexOf('>'))))
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .doesNotExist(HttpHeaders.LINK)
+            .expectBody()
+            .jsonPath("$.[*].name")
+            .value(contains("cursor-c"));
+    }
+
+    @Test
+    void getTagsWithoutCount() {
+        // Initialize the database
+        tagRepository.save(new Tag().name("slice-a")).block();
+        tagRepository.save(new Tag().name("slice-b")).block();
+        tagRepository.save(new Tag().name("slice-c")).block();
+
+        // Get the first page, which has a next page
+        webTestClient
+            .get()
+            .uri("/api/tags?count=false&page=0&size=2&sort=name,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Has-Next-Page", "true")
+            .expectHeader()
+            .doesNotExist("X-Total-Count")
+            .expectBody()
+            .jsonPath("$.[*].name")
+            .value(contains("slice-a", "slice-b"));
+
+        // Get the last page
+        webTestClient
+            .get()
+            .uri("/api/tags?count=false&page=1&size=2&sort=name,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Has-Next-Page", "false")
+            .expectBody()
+            .jsonPath("$.[*].name")
+            .value(contains("slice-c"));
+    }
+
+    @Test
+    void getTagsWithInvalidCursor() {
+        webTestClient.get().uri("/api/tags?after=invalid").accept(MediaType.APPLICATION_JSON).exchange().expectStatus().isBadRequest();
+    }
+
     @Test
     void getNonExistingTag() {
         // Get the tag
@@ -142,6 +142,32 @@ class UserResourceIT {
         assertThat(foundUser.getLangKey()).isEqualTo(DEFAULT_LANGKEY);
     }
 
+    @Test
+    void getAllUsersWithAuthorities() {
+        // Initialize the database
+        userRepository.create(user).block();
+        userRepository.addUserAuthorities(user.getId(), List.of(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN)).block();
+        User otherUser = createEntity(em);
+        userRepository.create(otherUser).block();
+
+        // Get all the users, with their authorities
+        List<AdminUserDTO> foundUsers = webTestClient
+            .get()
+            .uri("/api/admin/users?sort=login,ASC")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(AdminUserDTO.class)
+            .getResponseBody()
+            .collectList()
+            .block();
+
+        assertThat(foundUsers).extracting(AdminUserDTO::getLogin).containsExactly(DEFAULT_LOGIN, otherUser.getLogin());
+        assertThat(foundUsers.get(0).getAuthorities()).containsExactlyInAnyOrder(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN);
+        assertThat(foundUsers.get(1).getAuthorities()).isNullOrEmpty();
+    }
+
     @Test
     void getUser() {
         // Initialize the database